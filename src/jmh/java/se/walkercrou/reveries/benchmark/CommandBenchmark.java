@@ -0,0 +1,77 @@
+package se.walkercrou.reveries.benchmark;
+
+import com.flowpowered.math.vector.Vector3d;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.api.command.CommandException;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.entity.living.Living;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.world.Location;
+import se.walkercrou.reveries.Reveries;
+import se.walkercrou.reveries.cmd.exe.TraitCommandExecutors;
+import se.walkercrou.reveries.data.impl.ReveriesNpcData;
+import se.walkercrou.reveries.sight.SightMode;
+import se.walkercrou.reveries.trait.NpcTraitSet;
+import se.walkercrou.reveries.trait.NpcTraits;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a trait command on a single targeted NPC, from reading the arguments to the data being offered back to
+ * the entity, switching the trait on and off on alternate invocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandBenchmark {
+
+    private TraitCommandExecutors traits;
+    private CommandSource src;
+    private CommandContext enable;
+    private CommandContext disable;
+    private boolean enabled;
+
+    @Setup
+    public void setUp() {
+        Reveries plugin = FakeSponge.plugin();
+        this.traits = new TraitCommandExecutors(plugin);
+        this.src = Stubs.of(CommandSource.class)
+            .on("getName", (m, a) -> "benchmark")
+            .build();
+
+        Living npc = FakeSponge.living(FakeSponge.entityType("minecraft:villager"),
+            new Location<>(FakeSponge.world("world"), Vector3d.ZERO));
+        ReveriesNpcData data = new ReveriesNpcData(
+            null, Text.of("NPC"), 16, 360, SightMode.DISTANCE, new NpcTraitSet(), 0);
+        npc.offer(data);
+        plugin.getRegistry().register(npc, data);
+
+        this.enable = new CommandContext();
+        this.enable.putArg("npc", npc);
+        this.enable.putArg(NpcTraits.INVULNERABLE.getId(), true);
+        this.disable = new CommandContext();
+        this.disable.putArg("npc", npc);
+        this.disable.putArg(NpcTraits.INVULNERABLE.getId(), false);
+    }
+
+    @Benchmark
+    public CommandResult toggleTrait() throws CommandException {
+        this.enabled = !this.enabled;
+        return this.traits.updateTraits(this.src, this.enabled ? this.enable : this.disable);
+    }
+
+}
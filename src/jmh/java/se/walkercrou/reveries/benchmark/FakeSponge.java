@@ -0,0 +1,213 @@
+package se.walkercrou.reveries.benchmark;
+
+import com.flowpowered.math.vector.Vector3d;
+import com.google.common.collect.Maps;
+import org.slf4j.LoggerFactory;
+import org.spongepowered.api.Game;
+import org.spongepowered.api.GameRegistry;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.data.DataManager;
+import org.spongepowered.api.data.DataTransactionResult;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.manipulator.DataManipulator;
+import org.spongepowered.api.data.value.ValueFactory;
+import org.spongepowered.api.entity.EntityType;
+import org.spongepowered.api.entity.living.Living;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.event.EventManager;
+import org.spongepowered.api.plugin.PluginContainer;
+import org.spongepowered.api.text.LiteralText;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.serializer.FormattingCodeTextSerializer;
+import org.spongepowered.api.text.serializer.TextSerializers;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+import se.walkercrou.reveries.Reveries;
+import se.walkercrou.reveries.data.npc.NpcData;
+import se.walkercrou.reveries.trait.NpcTrait;
+import se.walkercrou.reveries.trait.NpcTraitRegistryModule;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * An in-memory stand-in for the parts of the server the plugin talks to. Entities and worlds only remember what the
+ * plugin tells them, events are never cancelled and the data API keeps manipulators in a map, so that benchmarks
+ * measure the plugin rather than a server.
+ */
+final class FakeSponge {
+
+    private static Game game;
+
+    private FakeSponge() {}
+
+    /**
+     * Fills in the static {@link Sponge} accessors and the text serializer used by NPC data. Safe to call more than
+     * once.
+     */
+    static synchronized Game install() {
+        if (game != null)
+            return game;
+
+        NpcTraitRegistryModule traits = new NpcTraitRegistryModule();
+        ValueFactory values = Stubs.of(ValueFactory.class)
+            .otherwise((m, a) -> value(m.getReturnType(), (Key<?>) a[0], a[1]))
+            .build();
+        GameRegistry registry = Stubs.of(GameRegistry.class)
+            .on("getValueFactory", (m, a) -> values)
+            .on("getAllOf", (m, a) -> a[0] == NpcTrait.class ? traits.getAll() : Collections.emptyList())
+            .on("getType", (m, a) -> a[0] == NpcTrait.class ? traits.getById((String) a[1]) : Optional.empty())
+            .build();
+        DataManager data = Stubs.of(DataManager.class).build();
+        EventManager events = Stubs.of(EventManager.class).build();
+        game = Stubs.of(Game.class)
+            .on("getRegistry", (m, a) -> registry)
+            .on("getDataManager", (m, a) -> data)
+            .on("getEventManager", (m, a) -> events)
+            .build();
+
+        for (Field field : Sponge.class.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()))
+                continue;
+            if (field.getType() == Game.class)
+                setStatic(field, game);
+            else if (field.getType() == GameRegistry.class)
+                setStatic(field, registry);
+            else if (field.getType() == DataManager.class)
+                setStatic(field, data);
+            else if (field.getType() == EventManager.class)
+                setStatic(field, events);
+        }
+
+        FormattingCodeTextSerializer legacy = Stubs.of(FormattingCodeTextSerializer.class)
+            .on("serialize", (m, a) -> plain((Text) a[0]))
+            .on("deserialize", (m, a) -> Text.of((String) a[0]))
+            .on("deserializeUnchecked", (m, a) -> Text.of((String) a[0]))
+            .on("getCharacter", (m, a) -> '&')
+            .build();
+        try {
+            setStatic(TextSerializers.class.getField("LEGACY_FORMATTING_CODE"), legacy);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+        return game;
+    }
+
+    /**
+     * Creates a plugin instance wired to the fake game, without starting it.
+     */
+    static Reveries plugin() {
+        Reveries plugin = new Reveries();
+        plugin.game = install();
+        plugin.log = LoggerFactory.getLogger("Reveries");
+        plugin.self = Stubs.of(PluginContainer.class)
+            .on("getId", (m, a) -> "reveries")
+            .on("getName", (m, a) -> "Reveries")
+            .on("getVersion", (m, a) -> Optional.of("benchmark"))
+            .build();
+        Reveries.INSTANCE = plugin;
+        return plugin;
+    }
+
+    static World world(String name) {
+        UUID uniqueId = UUID.randomUUID();
+        return Stubs.of(World.class)
+            .on("getUniqueId", (m, a) -> uniqueId)
+            .on("getName", (m, a) -> name)
+            .build();
+    }
+
+    static EntityType entityType(String id) {
+        return Stubs.of(EntityType.class)
+            .on("getId", (m, a) -> id)
+            .on("getName", (m, a) -> id)
+            .build();
+    }
+
+    static Living living(EntityType type, Location<World> location) {
+        return entity(Living.class, type, location);
+    }
+
+    static Player player(Location<World> location) {
+        return entity(Player.class, entityType("minecraft:player"), location);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Living> T entity(Class<T> type, EntityType entityType, Location<World> location) {
+        UUID uniqueId = UUID.randomUUID();
+        Object[] state = { location, Vector3d.ZERO };
+        Map<Class<?>, DataManipulator<?, ?>> manipulators = Maps.newHashMap();
+        return Stubs.of(type)
+            .on("getUniqueId", (m, a) -> uniqueId)
+            .on("getType", (m, a) -> entityType)
+            .on("getLocation", (m, a) -> state[0])
+            .on("getWorld", (m, a) -> ((Location<World>) state[0]).getExtent())
+            .on("setLocation", (m, a) -> {
+                state[0] = a[0];
+                return true;
+            })
+            .on("getHeadRotation", (m, a) -> state[1])
+            .on("setHeadRotation", (m, a) -> state[1] = a[0])
+            .on("get", (m, a) -> a[0] instanceof Class
+                ? Optional.ofNullable(manipulators.get(a[0])).map(DataManipulator::copy) : Optional.empty())
+            .on("offer", (m, a) -> {
+                if (!(a[0] instanceof DataManipulator))
+                    return DataTransactionResult.failNoData();
+                DataManipulator<?, ?> manipulator = (DataManipulator<?, ?>) a[0];
+                manipulators.put(manipulator instanceof NpcData ? NpcData.class : manipulator.getClass(),
+                    manipulator.copy());
+                return DataTransactionResult.successNoData();
+            })
+            .build();
+    }
+
+    /**
+     * Creates a value of the given value interface holding a plain element, standing in for the server's value
+     * implementations.
+     */
+    private static Object value(Class<?> type, Key<?> key, Object element) {
+        return Stubs.of(type)
+            .on("get", (m, a) -> element)
+            .on("getKey", (m, a) -> key)
+            .on("exists", (m, a) -> true)
+            .on("asMutable", (m, a) -> value(m.getReturnType(), key, element))
+            .on("asImmutable", (m, a) -> value(m.getReturnType(), key, element))
+            .build();
+    }
+
+    private static String plain(Text text) {
+        StringBuilder builder = new StringBuilder();
+        appendPlain(text, builder);
+        return builder.toString();
+    }
+
+    private static void appendPlain(Text text, StringBuilder builder) {
+        if (text instanceof LiteralText)
+            builder.append(((LiteralText) text).getContent());
+        for (Text child : text.getChildren())
+            appendPlain(child, builder);
+    }
+
+    /**
+     * Replaces a static field, final or not, the same way the server swaps in its implementations of the catalog
+     * placeholders.
+     */
+    private static void setStatic(Field field, Object value) {
+        try {
+            // initialize the class first, or its static initializer would put the placeholder back afterwards
+            Class.forName(field.getDeclaringClass().getName(), true, field.getDeclaringClass().getClassLoader());
+            Field theUnsafe = Unsafe.class.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Unsafe unsafe = (Unsafe) theUnsafe.get(null);
+            unsafe.putObject(unsafe.staticFieldBase(field), unsafe.staticFieldOffset(field), value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("could not set " + field, e);
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package se.walkercrou.reveries.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.text.Text;
+import se.walkercrou.reveries.data.impl.NpcDataManipulatorBuilder;
+import se.walkercrou.reveries.data.impl.ReveriesNpcData;
+import se.walkercrou.reveries.data.npc.NpcData;
+import se.walkercrou.reveries.sight.SightMode;
+import se.walkercrou.reveries.trait.NpcTraitSet;
+import se.walkercrou.reveries.trait.NpcTraits;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing NPC data to a container and building it back, which happens for every NPC as its chunk is saved
+ * and loaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NpcDataBenchmark {
+
+    private ReveriesNpcData data;
+    private DataContainer container;
+    private NpcDataManipulatorBuilder builder;
+
+    @Setup
+    public void setUp() {
+        FakeSponge.install();
+        NpcTraitSet traits = new NpcTraitSet();
+        traits.add(NpcTraits.INVULNERABLE);
+        traits.add(NpcTraits.HEAD_TRACKING);
+        this.data = new ReveriesNpcData(
+            UUID.randomUUID(), Text.of("Shopkeeper"), 16, 120, SightMode.LINE_OF_SIGHT, traits, 0);
+        this.container = this.data.toContainer();
+        this.builder = new NpcDataManipulatorBuilder();
+    }
+
+    @Benchmark
+    public DataContainer toContainer() {
+        return this.data.toContainer();
+    }
+
+    @Benchmark
+    public Optional<NpcData> build() {
+        return this.builder.build(this.container);
+    }
+
+    @Benchmark
+    public Optional<NpcData> roundTrip() {
+        return this.builder.build(this.data.toContainer());
+    }
+
+}
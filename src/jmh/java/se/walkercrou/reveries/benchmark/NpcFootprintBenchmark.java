@@ -0,0 +1,113 @@
+package se.walkercrou.reveries.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.text.Text;
+import se.walkercrou.reveries.data.impl.NpcDataManipulatorBuilder;
+import se.walkercrou.reveries.data.impl.ReveriesNpcData;
+import se.walkercrou.reveries.data.npc.NpcData;
+import se.walkercrou.reveries.sight.SightMode;
+import se.walkercrou.reveries.trait.NpcTraitSet;
+import se.walkercrou.reveries.trait.NpcTraits;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the heap held by the data of 50,000 loaded NPCs, with the display names and trait sets shared between NPCs
+ * and with every NPC keeping its own. The NPCs are built from saved data the same way they are as their chunks load,
+ * the retained heap is read after a full collection and reported per NPC next to the time the load took.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 1)
+public class NpcFootprintBenchmark {
+
+    private static final int NPCS = 50_000;
+    private static final String[] NAMES = { "Shopkeeper", "Guard", "Banker", "Villager" };
+
+    private DataContainer[] containers;
+    private NpcDataManipulatorBuilder builder;
+    // held until the next load so that the NPCs being measured stay reachable
+    private NpcData[] npcs;
+
+    /**
+     * The heap held by the last load, as reported next to the score.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        public long retainedBytes;
+        public long bytesPerNpc;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.retainedBytes = 0;
+            this.bytesPerNpc = 0;
+        }
+
+    }
+
+    @Setup
+    public void setUp() {
+        FakeSponge.install();
+        UUID ownerId = UUID.randomUUID();
+        this.containers = new DataContainer[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++) {
+            NpcTraitSet traits = new NpcTraitSet();
+            traits.add(NpcTraits.INVULNERABLE);
+            if (i % 2 == 0)
+                traits.add(NpcTraits.HEAD_TRACKING);
+            this.containers[i] = new ReveriesNpcData(
+                ownerId, Text.of(NAMES[i]), 16, 120, SightMode.LINE_OF_SIGHT, traits, 0).toContainer();
+        }
+        this.builder = new NpcDataManipulatorBuilder();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = { "-XX:+UseSerialGC", "-Dreveries.intern=true" })
+    public void shared(Footprint footprint) {
+        load(footprint);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = { "-XX:+UseSerialGC", "-Dreveries.intern=false" })
+    public void unshared(Footprint footprint) {
+        load(footprint);
+    }
+
+    private void load(Footprint footprint) {
+        this.npcs = null;
+        long before = usedHeap();
+        NpcData[] npcs = new NpcData[NPCS];
+        for (int i = 0; i < NPCS; i++)
+            npcs[i] = this.builder.build(this.containers[i % this.containers.length]).get();
+        this.npcs = npcs;
+        footprint.retainedBytes = usedHeap() - before;
+        footprint.bytesPerNpc = footprint.retainedBytes / NPCS;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++)
+            memory.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+}
@@ -0,0 +1,113 @@
+package se.walkercrou.reveries.benchmark;
+
+import com.flowpowered.math.vector.Vector3d;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.api.entity.EntityType;
+import org.spongepowered.api.entity.living.Living;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.scheduler.Task;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+import se.walkercrou.reveries.Npc;
+import se.walkercrou.reveries.NpcTickEngine;
+import se.walkercrou.reveries.Reveries;
+import se.walkercrou.reveries.data.impl.ReveriesNpcData;
+import se.walkercrou.reveries.sight.SightMode;
+import se.walkercrou.reveries.trait.NpcTraitSet;
+import se.walkercrou.reveries.trait.NpcTraits;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs whole sight passes of the tick engine over NPCs and players scattered across a single world. Every other NPC
+ * has a view cone and tracks players with its head, the rest only check distance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SightBenchmark {
+
+    private static final double AREA = 1024;
+    private static final double SIGHT_RANGE = 16;
+    private static final int PATH_LENGTH = 16;
+    private static final double PATH_RADIUS = 8;
+
+    @Param({ "100", "1000", "10000" })
+    int npcs;
+
+    @Param({ "1", "20", "100" })
+    int players;
+
+    private NpcTickEngine engine;
+    private Task task;
+    private Player[] online;
+    private Location<World>[][] paths;
+    private int step;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        Reveries plugin = FakeSponge.plugin();
+        this.engine = plugin.getEngine();
+        this.task = Stubs.of(Task.class).build();
+
+        Random random = new Random(42);
+        World world = FakeSponge.world("world");
+        EntityType villager = FakeSponge.entityType("minecraft:villager");
+        NpcTraitSet tracking = new NpcTraitSet();
+        tracking.add(NpcTraits.HEAD_TRACKING);
+        for (int i = 0; i < this.npcs; i++) {
+            Living living = FakeSponge.living(villager, randomLocation(world, random));
+            boolean cone = i % 2 == 0;
+            Npc npc = plugin.getRegistry().register(living, new ReveriesNpcData(null, Text.of("NPC"), SIGHT_RANGE,
+                cone ? 120 : 360, SightMode.DISTANCE, cone ? tracking : new NpcTraitSet(), 0));
+            this.engine.add(npc);
+        }
+
+        // each player walks in a small circle so that NPCs keep spotting and losing sight of them
+        this.online = new Player[this.players];
+        this.paths = new Location[this.players][PATH_LENGTH];
+        for (int i = 0; i < this.players; i++) {
+            Location<World> center = randomLocation(world, random);
+            for (int j = 0; j < PATH_LENGTH; j++) {
+                double angle = 2 * Math.PI * j / PATH_LENGTH;
+                this.paths[i][j] = center.add(Math.cos(angle) * PATH_RADIUS, 0, Math.sin(angle) * PATH_RADIUS);
+            }
+            this.online[i] = FakeSponge.player(center);
+            this.engine.addPlayer(this.online[i]);
+        }
+    }
+
+    private static Location<World> randomLocation(World world, Random random) {
+        return new Location<>(world, new Vector3d(random.nextDouble() * AREA, 64, random.nextDouble() * AREA));
+    }
+
+    @Benchmark
+    public void stationaryPlayers() {
+        this.engine.accept(this.task);
+    }
+
+    @Benchmark
+    public void movingPlayers() {
+        int step = this.step++ % PATH_LENGTH;
+        for (int i = 0; i < this.online.length; i++)
+            this.online[i].setLocation(this.paths[i][step]);
+        this.engine.accept(this.task);
+    }
+
+}
@@ -0,0 +1,207 @@
+package se.walkercrou.reveries.benchmark;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.api.profile.GameProfile;
+import org.spongepowered.api.profile.ProfileNotFoundException;
+import org.spongepowered.api.profile.property.ProfileProperty;
+import se.walkercrou.reveries.skin.ProfileLookup;
+import se.walkercrou.reveries.skin.SkinProfileCache;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures answering a skin request from the cache and through a lookup. The setup first drives the cache through a
+ * stand-in lookup and fails if the least recently used eviction, expiry, negative caching, sharing of lookups in
+ * flight or leaving unskinned profiles out of the saved file does not behave.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SkinCacheBenchmark {
+
+    private SkinProfileCache cache;
+
+    @Setup
+    public void setUp() throws IOException {
+        checkSharedLookup();
+        checkNegative();
+        checkExpiry();
+        checkEviction();
+        checkSave();
+
+        this.cache = new SkinProfileCache(new FakeLookup(true));
+        this.cache.get("Steve").join();
+    }
+
+    @Benchmark
+    public Optional<GameProfile> hit() {
+        return this.cache.get("Steve").join();
+    }
+
+    @Benchmark
+    public Optional<GameProfile> lookup() {
+        this.cache.invalidate("Alex");
+        return this.cache.get("Alex").join();
+    }
+
+    private static void checkSharedLookup() {
+        FakeLookup lookup = new FakeLookup(false);
+        SkinProfileCache cache = new SkinProfileCache(lookup);
+        CompletableFuture<Optional<GameProfile>> first = cache.get("Steve");
+        CompletableFuture<Optional<GameProfile>> second = cache.get("steve");
+        check(lookup.calls == 1, "requests for the same name started " + lookup.calls + " lookups");
+        check(!first.isDone(), "request completed before its lookup");
+        lookup.completeAll();
+        check(first.join().isPresent() && first.join().equals(second.join()), "shared lookup answered differently");
+        cache.get("Steve").join();
+        check(lookup.calls == 1 && cache.getHitCount() == 1, "completed lookup was not cached");
+    }
+
+    private static void checkNegative() {
+        FakeLookup lookup = new FakeLookup(true);
+        SkinProfileCache cache = new SkinProfileCache(lookup);
+        check(!cache.get("nobody").join().isPresent(), "missing profile was found");
+        check(!cache.get("nobody").join().isPresent() && lookup.calls == 1, "missing profile was not cached");
+
+        SkinProfileCache expiring = new SkinProfileCache(lookup, 16, SkinProfileCache.DEFAULT_TTL, 0);
+        expiring.get("nobody").join();
+        expiring.get("nobody").join();
+        check(lookup.calls == 3, "missing profile outlived its shorter expiry");
+    }
+
+    private static void checkExpiry() {
+        FakeLookup lookup = new FakeLookup(true);
+        SkinProfileCache cache = new SkinProfileCache(lookup, 16, 0, 0);
+        cache.get("Steve").join();
+        cache.get("Steve").join();
+        check(lookup.calls == 2, "expired profile was served from the cache");
+    }
+
+    private static void checkEviction() {
+        FakeLookup lookup = new FakeLookup(true);
+        SkinProfileCache cache = new SkinProfileCache(
+            lookup, 2, SkinProfileCache.DEFAULT_TTL, SkinProfileCache.DEFAULT_NEGATIVE_TTL);
+        cache.get("Steve").join();
+        cache.get("Alex").join();
+        cache.get("Steve").join();
+        cache.get("Herobrine").join();
+        check(cache.size() == 2, "cache grew past its size");
+        cache.get("Steve").join();
+        check(lookup.calls == 3, "recently used profile was evicted");
+        cache.get("Alex").join();
+        check(lookup.calls == 4, "least recently used profile was kept");
+    }
+
+    private static void checkSave() throws IOException {
+        FakeLookup lookup = new FakeLookup(true);
+        lookup.unskinned = "Unfilled";
+        SkinProfileCache cache = new SkinProfileCache(lookup);
+        cache.get("Steve").join();
+        cache.get("Unfilled").join();
+        cache.get("nobody").join();
+
+        Path file = Files.createTempFile("skins", ".dat");
+        try {
+            cache.save(file);
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+                in.readInt();
+                in.readInt();
+                int count = in.readInt();
+                check(count == 2, "saved " + count + " entries, expected the skinned and the missing profile");
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition)
+            throw new IllegalStateException(message);
+    }
+
+    /**
+     * Stands in for the game profile manager. Every name but "nobody" has a profile, filled with a texture unless it
+     * is the unskinned name. Lookups either complete right away or wait until {@link #completeAll()}.
+     */
+    private static final class FakeLookup implements ProfileLookup {
+
+        private final boolean immediate;
+        private final Map<String, CompletableFuture<GameProfile>> pending = Maps.newLinkedHashMap();
+        String unskinned;
+        int calls;
+
+        FakeLookup(boolean immediate) {
+            this.immediate = immediate;
+        }
+
+        @Override
+        public CompletableFuture<GameProfile> lookup(String name) {
+            this.calls++;
+            CompletableFuture<GameProfile> future = new CompletableFuture<>();
+            if (this.immediate)
+                complete(name, future);
+            else
+                this.pending.put(name, future);
+            return future;
+        }
+
+        void completeAll() {
+            Map<String, CompletableFuture<GameProfile>> pending = Maps.newLinkedHashMap(this.pending);
+            this.pending.clear();
+            pending.forEach(this::complete);
+        }
+
+        private void complete(String name, CompletableFuture<GameProfile> future) {
+            if (name.equals("nobody")) {
+                future.completeExceptionally(new ProfileNotFoundException(name));
+                return;
+            }
+            Multimap<String, ProfileProperty> properties = HashMultimap.create();
+            if (!name.equals(this.unskinned))
+                properties.put("textures", property("textures", "e3RleHR1cmVzOnt9fQ=="));
+            future.complete(profile(name, properties));
+        }
+
+        private static GameProfile profile(String name, Multimap<String, ProfileProperty> properties) {
+            UUID uniqueId = UUID.nameUUIDFromBytes(name.getBytes());
+            return Stubs.of(GameProfile.class)
+                .on("getUniqueId", (m, a) -> uniqueId)
+                .on("getName", (m, a) -> Optional.of(name))
+                .on("getPropertyMap", (m, a) -> properties)
+                .build();
+        }
+
+        private static ProfileProperty property(String name, String value) {
+            return Stubs.of(ProfileProperty.class)
+                .on("getName", (m, a) -> name)
+                .on("getValue", (m, a) -> value)
+                .on("getSignature", (m, a) -> Optional.of("signature"))
+                .build();
+        }
+
+    }
+
+}
@@ -0,0 +1,99 @@
+package se.walkercrou.reveries.benchmark;
+
+import com.google.common.collect.Maps;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Builds proxies of API interfaces that answer the methods they are told about and return an empty or zero value
+ * from every other one. Only the handful of methods the benchmarked code actually calls need to be given.
+ */
+final class Stubs<T> {
+
+    @FunctionalInterface
+    interface Answer {
+        Object answer(Method method, Object[] args);
+    }
+
+    private static final Object[] NO_ARGS = {};
+
+    private final Class<T> type;
+    private final Map<String, Answer> answers = Maps.newHashMap();
+    private Answer otherwise;
+
+    private Stubs(Class<T> type) {
+        this.type = type;
+    }
+
+    static <T> Stubs<T> of(Class<T> type) {
+        return new Stubs<>(type);
+    }
+
+    Stubs<T> on(String method, Answer answer) {
+        this.answers.put(method, answer);
+        return this;
+    }
+
+    Stubs<T> otherwise(Answer answer) {
+        this.otherwise = answer;
+        return this;
+    }
+
+    T build() {
+        Map<String, Answer> answers = Maps.newHashMap(this.answers);
+        Answer otherwise = this.otherwise;
+        String name = "Fake" + this.type.getSimpleName();
+        return this.type.cast(Proxy.newProxyInstance(this.type.getClassLoader(), new Class<?>[] { this.type },
+            (proxy, method, args) -> {
+                Object[] a = args == null ? NO_ARGS : args;
+                if (method.getDeclaringClass() == Object.class) {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == a[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return name;
+                    }
+                }
+                Answer answer = answers.getOrDefault(method.getName(), otherwise);
+                return answer == null ? defaultValue(method.getReturnType()) : answer.answer(method, a);
+            }));
+    }
+
+    static Object defaultValue(Class<?> type) {
+        if (type == boolean.class)
+            return false;
+        if (type == int.class)
+            return 0;
+        if (type == long.class)
+            return 0L;
+        if (type == double.class)
+            return 0d;
+        if (type == float.class)
+            return 0f;
+        if (type == short.class)
+            return (short) 0;
+        if (type == byte.class)
+            return (byte) 0;
+        if (type == char.class)
+            return '\0';
+        if (type == Optional.class)
+            return Optional.empty();
+        if (type == Set.class)
+            return Collections.emptySet();
+        if (type == List.class || type == Collection.class)
+            return Collections.emptyList();
+        if (type == Map.class)
+            return Collections.emptyMap();
+        return null;
+    }
+
+}
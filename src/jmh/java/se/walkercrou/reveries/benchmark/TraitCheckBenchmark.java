@@ -0,0 +1,80 @@
+package se.walkercrou.reveries.benchmark;
+
+import com.flowpowered.math.vector.Vector3d;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.api.entity.EntityType;
+import org.spongepowered.api.entity.living.Living;
+import org.spongepowered.api.event.entity.DamageEntityEvent;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+import se.walkercrou.reveries.Reveries;
+import se.walkercrou.reveries.data.impl.ReveriesNpcData;
+import se.walkercrou.reveries.event.EntityListener;
+import se.walkercrou.reveries.sight.SightMode;
+import se.walkercrou.reveries.trait.NpcTraitSet;
+import se.walkercrou.reveries.trait.NpcTraits;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the entity listener's trait check, which runs for every damage, move, collision and ignition of every
+ * entity on the server, NPC or not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraitCheckBenchmark {
+
+    @Param({ "1000", "100000" })
+    int npcs;
+
+    private EntityListener listener;
+    private DamageEntityEvent event;
+    private Living npc;
+    private Living other;
+
+    @Setup
+    public void setUp() {
+        Reveries plugin = FakeSponge.plugin();
+        this.listener = new EntityListener(plugin.getRegistry(), plugin.getMetrics());
+        this.event = Stubs.of(DamageEntityEvent.class).build();
+
+        World world = FakeSponge.world("world");
+        EntityType villager = FakeSponge.entityType("minecraft:villager");
+        NpcTraitSet traits = new NpcTraitSet();
+        traits.add(NpcTraits.INVULNERABLE);
+        for (int i = 0; i < this.npcs; i++) {
+            Living living = FakeSponge.living(villager, new Location<>(world, new Vector3d(i, 64, 0)));
+            plugin.getRegistry().register(living, new ReveriesNpcData(
+                null, Text.of("NPC"), 0, 360, SightMode.DISTANCE, traits, 0));
+            if (this.npc == null)
+                this.npc = living;
+        }
+        this.other = FakeSponge.living(villager, new Location<>(world, new Vector3d(0, 64, 1)));
+    }
+
+    @Benchmark
+    public void npc() {
+        this.listener.onNpcDamage(this.event, this.npc);
+    }
+
+    @Benchmark
+    public void otherEntity() {
+        this.listener.onNpcDamage(this.event, this.other);
+    }
+
+}
@@ -0,0 +1,98 @@
+package se.walkercrou.reveries;
+
+import static se.walkercrou.reveries.Messages.BULK_DONE;
+import static se.walkercrou.reveries.Messages.BULK_PROGRESS;
+import static se.walkercrou.reveries.Messages.BULK_STARTED;
+
+import com.google.common.collect.ImmutableMap;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.scheduler.Task;
+import org.spongepowered.api.text.Text;
+import se.walkercrou.reveries.property.PropertyException;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Applies a change to many NPCs at once, spread over as many ticks as it takes to stay within a per-tick time budget.
+ * The sender is told how far along the operation is about once a second and again when it is done.
+ */
+public final class BulkOperation implements Consumer<Task> {
+
+    public static final long DEFAULT_BUDGET_MILLIS = 5;
+
+    private static final int REPORT_INTERVAL_TICKS = 20;
+
+    private final Reveries plugin;
+    private final CommandSource src;
+    private final List<Npc> targets;
+    private final Action action;
+    private final long budgetNanos;
+    private int next;
+    private int changed;
+    private int failed;
+    private int ticks;
+
+    public BulkOperation(Reveries plugin, CommandSource src, List<Npc> targets, Action action) {
+        this(plugin, src, targets, action, DEFAULT_BUDGET_MILLIS);
+    }
+
+    public BulkOperation(Reveries plugin, CommandSource src, List<Npc> targets, Action action, long budgetMillis) {
+        this.plugin = plugin;
+        this.src = src;
+        this.targets = targets;
+        this.action = action;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    }
+
+    public void start() {
+        this.src.sendMessage(BULK_STARTED, ImmutableMap.of("amount", Text.of(this.targets.size())));
+        this.plugin.game.getScheduler().createTaskBuilder()
+            .name("reveries-bulk-operation")
+            .intervalTicks(1)
+            .execute(this)
+            .submit(this.plugin);
+    }
+
+    @Override
+    public void accept(Task task) {
+        // always gets at least one NPC done, however small the budget
+        long deadline = System.nanoTime() + this.budgetNanos;
+        while (this.next < this.targets.size()) {
+            Npc npc = this.targets.get(this.next++);
+            if (!npc.getEntity().isRemoved()) {
+                try {
+                    if (this.action.apply(npc))
+                        this.changed++;
+                } catch (PropertyException e) {
+                    this.failed++;
+                }
+            }
+            if (System.nanoTime() >= deadline)
+                break;
+        }
+
+        if (this.next == this.targets.size()) {
+            task.cancel();
+            this.src.sendMessage(BULK_DONE, ImmutableMap.of(
+                "changed", Text.of(this.changed),
+                "amount", Text.of(this.targets.size()),
+                "failed", Text.of(this.failed)));
+        } else if (++this.ticks % REPORT_INTERVAL_TICKS == 0) {
+            this.src.sendMessage(BULK_PROGRESS, ImmutableMap.of(
+                "done", Text.of(this.next), "amount", Text.of(this.targets.size())));
+        }
+    }
+
+    @FunctionalInterface
+    public interface Action {
+
+        /**
+         * Applies the change to a single NPC and returns whether anything was changed.
+         */
+        boolean apply(Npc npc) throws PropertyException;
+
+    }
+
+}
@@ -0,0 +1,82 @@
+package se.walkercrou.reveries;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Monitors that have been put to sleep because no player is anywhere near them, bucketed by the chunk their NPC was
+ * in. Dormant monitors do no work at all until a player moves into a nearby chunk.
+ */
+final class DormantIndex {
+
+    private final Map<UUID, Map<Long, List<NpcMonitor>>> worlds = Maps.newHashMap();
+    private int size;
+    private int radius;
+
+    void add(NpcMonitor monitor, UUID worldId, int chunkX, int chunkZ, double searchRange) {
+        long key = PlayerGrid.key(chunkX, chunkZ);
+        this.worlds.computeIfAbsent(worldId, id -> Maps.newHashMap())
+            .computeIfAbsent(key, k -> Lists.newArrayListWithCapacity(2))
+            .add(monitor);
+        monitor.dormantWorld = worldId;
+        monitor.dormantChunk = key;
+        this.size++;
+        this.radius = Math.max(this.radius, (int) Math.ceil(searchRange / 16) + 1);
+    }
+
+    boolean remove(NpcMonitor monitor) {
+        Map<Long, List<NpcMonitor>> chunks = this.worlds.get(monitor.dormantWorld);
+        if (chunks == null)
+            return false;
+        List<NpcMonitor> bucket = chunks.get(monitor.dormantChunk);
+        if (bucket == null || !bucket.remove(monitor))
+            return false;
+        if (bucket.isEmpty())
+            chunks.remove(monitor.dormantChunk);
+        onRemoved(monitor);
+        return true;
+    }
+
+    /**
+     * Moves every monitor sleeping within the wake radius of the given chunk into {@code out}.
+     */
+    void wakeAround(UUID worldId, int chunkX, int chunkZ, List<NpcMonitor> out) {
+        Map<Long, List<NpcMonitor>> chunks = this.worlds.get(worldId);
+        if (chunks == null)
+            return;
+        int r = this.radius;
+        for (int cx = chunkX - r; cx <= chunkX + r; cx++) {
+            for (int cz = chunkZ - r; cz <= chunkZ + r; cz++)
+                wake(chunks, PlayerGrid.key(cx, cz), out);
+        }
+    }
+
+    private void wake(Map<Long, List<NpcMonitor>> chunks, long key, List<NpcMonitor> out) {
+        List<NpcMonitor> bucket = chunks.remove(key);
+        if (bucket == null)
+            return;
+        for (NpcMonitor monitor : bucket) {
+            onRemoved(monitor);
+            out.add(monitor);
+        }
+    }
+
+    private void onRemoved(NpcMonitor monitor) {
+        monitor.dormantWorld = null;
+        if (--this.size == 0)
+            this.radius = 0;
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+}
@@ -0,0 +1,55 @@
+package se.walkercrou.reveries;
+
+import com.google.common.collect.Multimap;
+import org.spongepowered.api.event.EventManager;
+
+import java.lang.reflect.Field;
+import java.util.Optional;
+
+/**
+ * Finds out whether anything listens for an event type. The API has no way to ask, so this reads the listeners the
+ * event manager keeps per event class, which every implementation so far holds in a {@link Multimap}. If no such map
+ * is found the answer is unknown.
+ */
+final class EventListeners {
+
+    private EventListeners() {}
+
+    /**
+     * Returns whether a listener is registered for any of the given event types or one of their supertypes, or an
+     * empty optional if the event manager could not be read.
+     */
+    static Optional<Boolean> isListenedTo(EventManager events, Class<?>... types) {
+        Multimap<?, ?> handlers = findHandlers(events);
+        if (handlers == null)
+            return Optional.empty();
+        synchronized (events) {
+            for (Object key : handlers.keySet()) {
+                if (!(key instanceof Class))
+                    return Optional.empty();
+                for (Class<?> type : types) {
+                    if (((Class<?>) key).isAssignableFrom(type))
+                        return Optional.of(true);
+                }
+            }
+        }
+        return Optional.of(false);
+    }
+
+    private static Multimap<?, ?> findHandlers(EventManager events) {
+        for (Class<?> c = events.getClass(); c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Multimap.class.isAssignableFrom(field.getType()))
+                    continue;
+                try {
+                    field.setAccessible(true);
+                    return (Multimap<?, ?>) field.get(events);
+                } catch (IllegalAccessException | RuntimeException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+}
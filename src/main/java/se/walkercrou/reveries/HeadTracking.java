@@ -0,0 +1,110 @@
+package se.walkercrou.reveries;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Settings for how NPCs with the head tracking trait turn toward the player they are tracking. Every head rotation is
+ * sent to everyone watching the NPC, so small turns are skipped, each NPC turns at most a few times a second, and a
+ * turn only covers part of the way to the player so that the head eases toward them over several updates.
+ *
+ * <p>The player to look at is picked from the few nearest visible players by a {@link TargetPriority}. A nearer
+ * player only takes over from the current target once they are nearer by the switch margin, so that an NPC doesn't
+ * keep turning between two players standing close together.</p>
+ */
+public final class HeadTracking {
+
+    public static final double DEFAULT_MIN_DELTA = 2;
+    public static final int DEFAULT_MAX_UPDATES_PER_SECOND = 10;
+    public static final double DEFAULT_SMOOTHING = 0.5;
+    public static final int DEFAULT_CANDIDATES = 4;
+    public static final double DEFAULT_SWITCH_MARGIN = 1.5;
+
+    private static final int TICKS_PER_SECOND = 20;
+
+    private double minDelta = DEFAULT_MIN_DELTA;
+    private int maxUpdatesPerSecond = DEFAULT_MAX_UPDATES_PER_SECOND;
+    private int updateInterval = intervalOf(DEFAULT_MAX_UPDATES_PER_SECOND);
+    private double smoothing = DEFAULT_SMOOTHING;
+    private TargetPriority priority = TargetPriority.NEAREST;
+    private int candidates = DEFAULT_CANDIDATES;
+    private double switchMargin = DEFAULT_SWITCH_MARGIN;
+
+    public double getMinDelta() {
+        return this.minDelta;
+    }
+
+    /**
+     * Sets the smallest change in yaw or pitch, in degrees, that is worth turning the head for.
+     */
+    public void setMinDelta(double minDelta) {
+        checkArgument(minDelta >= 0, "min delta must be non-negative");
+        this.minDelta = minDelta;
+    }
+
+    public int getMaxUpdatesPerSecond() {
+        return this.maxUpdatesPerSecond;
+    }
+
+    public void setMaxUpdatesPerSecond(int maxUpdatesPerSecond) {
+        checkArgument(maxUpdatesPerSecond > 0, "max updates per second must be positive");
+        this.maxUpdatesPerSecond = maxUpdatesPerSecond;
+        this.updateInterval = intervalOf(maxUpdatesPerSecond);
+    }
+
+    /**
+     * Returns the least number of ticks between two head updates of the same NPC.
+     */
+    public int getUpdateInterval() {
+        return this.updateInterval;
+    }
+
+    public double getSmoothing() {
+        return this.smoothing;
+    }
+
+    /**
+     * Sets the fraction of the remaining turn that each update covers, where 1 turns straight to the player.
+     */
+    public void setSmoothing(double smoothing) {
+        checkArgument(smoothing > 0 && smoothing <= 1, "smoothing must be in (0, 1]");
+        this.smoothing = smoothing;
+    }
+
+    public TargetPriority getPriority() {
+        return this.priority;
+    }
+
+    public void setPriority(TargetPriority priority) {
+        this.priority = checkNotNull(priority, "null priority");
+    }
+
+    public int getCandidates() {
+        return this.candidates;
+    }
+
+    /**
+     * Sets how many of the nearest visible players are considered when picking a target.
+     */
+    public void setCandidates(int candidates) {
+        checkArgument(candidates > 0, "candidates must be positive");
+        this.candidates = candidates;
+    }
+
+    public double getSwitchMargin() {
+        return this.switchMargin;
+    }
+
+    /**
+     * Sets how much nearer, in blocks, another player must be than the current target to take over from them.
+     */
+    public void setSwitchMargin(double switchMargin) {
+        checkArgument(switchMargin >= 0, "switch margin must be non-negative");
+        this.switchMargin = switchMargin;
+    }
+
+    private static int intervalOf(int maxUpdatesPerSecond) {
+        return Math.max(1, (TICKS_PER_SECOND + maxUpdatesPerSecond - 1) / maxUpdatesPerSecond);
+    }
+
+}
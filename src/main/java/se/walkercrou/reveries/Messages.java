@@ -11,6 +11,8 @@ import static org.spongepowered.api.text.format.TextColors.GRAY;
 import static org.spongepowered.api.text.format.TextColors.GREEN;
 import static org.spongepowered.api.text.format.TextColors.RED;
 
+import com.flowpowered.math.vector.Vector3i;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.spongepowered.api.CatalogType;
@@ -22,6 +24,7 @@ import org.spongepowered.api.text.Text;
 import org.spongepowered.api.text.TextElement;
 import org.spongepowered.api.text.TextTemplate;
 import se.walkercrou.reveries.data.npc.NpcData;
+import se.walkercrou.reveries.metrics.NpcMetrics;
 import se.walkercrou.reveries.property.NpcProperty;
 import se.walkercrou.reveries.trait.NpcTrait;
 
@@ -79,6 +82,43 @@ public final class Messages {
 
     public static final Text NO_ENTITY_TARGET = Text.of(RED, "No entity target found.");
 
+    public static final TextTemplate QUOTA_REACHED = of(RED, "You may not own more than ", arg("quota"), " NPCs.");
+
+    public static final TextTemplate NPC_LIST_ENTRY = of(
+        GREEN, arg("npc.name"), GRAY, " ", arg("npc.entity.type"), " ", arg("npc.location"));
+
+    public static final Text NO_NPCS_FOUND = Text.of(GRAY, "No NPCs found.");
+
+    public static final TextTemplate NPC_LIST_PAGE = of(GRAY, "Page ", arg("page"), " of ", arg("pages"));
+
+    public static final Text NO_NPCS_SELECTED = Text.of(RED, "No NPCs matched the selection.");
+
+    public static final Text NO_RADIUS_ORIGIN = Text.of(RED, "You must be in a world to select NPCs by radius.");
+
+    public static final TextTemplate BULK_STARTED = of(GREEN, "Applying changes to ", arg("amount"), " NPCs...");
+
+    public static final TextTemplate BULK_PROGRESS = of(GRAY, arg("done"), " of ", arg("amount"), " NPCs done.");
+
+    public static final TextTemplate BULK_DONE = of(
+        GREEN, "Changed ", arg("changed"), " of ", arg("amount"), " NPCs, ", arg("failed"), " failed.");
+
+    public static final TextTemplate TEMPLATE_SAVED = of(GREEN, "Saved template ", arg("name").color(BLUE), ".");
+
+    public static final TextTemplate UNKNOWN_TEMPLATE = of(RED, "There is no template named ", arg("name"), ".");
+
+    public static final Text NO_OWNER = Text.of(RED, "NPCs can only be spawned by players, who then own them.");
+
+    public static final TextTemplate BATCH_STARTED = of(GREEN, "Spawning ", arg("amount"), " NPCs...");
+
+    public static final TextTemplate BATCH_DONE = of(
+        GREEN, "Spawned ", arg("spawned"), " of ", arg("amount"), " NPCs.");
+
+    public static final TextTemplate STATS_ENTRY = of(BLUE, arg("subsystem"), NEW_LINE, GRAY, "  ", arg("stats"));
+
+    public static final Text STATS_RESET = Text.of(GREEN, "Reset NPC metrics.");
+
+    private static final int NPC_LIST_PAGE_SIZE = 15;
+
     private Messages() {}
 
     public static PaginationList getNpcInfo(Living npc, NpcData npcData) {
@@ -129,6 +169,95 @@ public final class Messages {
             .build();
     }
 
+    /**
+     * Lists one page of the given NPCs, sorting them by id so that pages stay put between commands. Only the lines of
+     * the shown page are built, so listing thousands of NPCs costs no more than listing a few. The other pages are
+     * reached by running the given command again with a {@code --page} flag.
+     */
+    public static PaginationList getNpcList(Text title, List<Npc> npcs, int page, String command) {
+        if (npcs.isEmpty()) {
+            return PaginationList.builder()
+                .title(title.toBuilder().color(GRAY).build())
+                .contents(NO_NPCS_FOUND)
+                .build();
+        }
+
+        npcs.sort(Comparator.comparing(Npc::getUniqueId));
+        int pages = (npcs.size() + NPC_LIST_PAGE_SIZE - 1) / NPC_LIST_PAGE_SIZE;
+        page = Math.min(Math.max(page, 1), pages);
+        int from = (page - 1) * NPC_LIST_PAGE_SIZE;
+        List<Text> lines = Lists.newArrayListWithCapacity(NPC_LIST_PAGE_SIZE);
+        for (Npc npc : npcs.subList(from, Math.min(from + NPC_LIST_PAGE_SIZE, npcs.size())))
+            lines.add(getNpcListEntry(npc));
+
+        Text.Builder footer = Text.builder();
+        if (page > 1)
+            footer.append(getPageLink("\u00ab ", command, page - 1));
+        footer.append(NPC_LIST_PAGE.apply(ImmutableMap.of("page", Text.of(page), "pages", Text.of(pages))).build());
+        if (page < pages)
+            footer.append(getPageLink(" \u00bb", command, page + 1));
+
+        return PaginationList.builder()
+            .title(title.toBuilder().color(GRAY).build())
+            .contents(lines)
+            .footer(footer.build())
+            .build();
+    }
+
+    private static Text getPageLink(String label, String command, int page) {
+        return Text.builder(label).color(BLUE).onClick(runCommand(command + " --page " + page)).build();
+    }
+
+    private static Text getNpcListEntry(Npc npc) {
+        Living entity = npc.getEntity();
+        Vector3i pos = entity.getLocation().getBlockPosition();
+        Map<String, TextElement> entry = Maps.newHashMap();
+        entry.put("npc.name", npc.getDisplayName());
+        entry.put("npc.entity.type", Text.of(entity.getType().getId()));
+        entry.put("npc.location", Text.of(
+            entity.getWorld().getName(), " ", pos.getX(), ", ", pos.getY(), ", ", pos.getZ()));
+        return NPC_LIST_ENTRY.apply(entry).build().toBuilder()
+            .onClick(runCommand("/npc info " + npc.getUniqueId()))
+            .build();
+    }
+
+    /**
+     * Shows the metrics of each subsystem, so that it can be seen which one is eating the tick.
+     */
+    public static PaginationList getStats(NpcMetrics metrics) {
+        List<Text> lines = Lists.newArrayList(
+            getStatsEntry("NPCs", "loaded ", metrics.getLoadedNpcs(), ", monitored ", metrics.getMonitoredNpcs(),
+                " (", metrics.getActiveMonitors(), " active, ", metrics.getDormantMonitors(), " dormant)"),
+            getStatsEntry("Sight passes", "mean ", millis(metrics.getPassMeanNanos()), " ms, p99 ",
+                millis(metrics.getPassP99Nanos()), " ms, max ", millis(metrics.getPassMaxNanos()), " ms over ",
+                metrics.getPassCount(), " passes"),
+            getStatsEntry("Sight checks", metrics.getNpcsChecked(), " NPCs checked, ", metrics.getPlayersInRange(),
+                " players in range, ", metrics.getRaysCast(), " rays cast"),
+            getStatsEntry("Events", metrics.getBatchesPosted(), " batches, ", metrics.getTransitions(),
+                " transitions (", metrics.getTransitionsCancelled(), " cancelled), ",
+                metrics.getSingleEventsPosted(), " single events (", metrics.getSingleEventsCancelled(),
+                " cancelled)"),
+            getStatsEntry("Head tracking", metrics.getHeadTurns(), " turns, ", metrics.getHeadTurnsSkipped(),
+                " skipped"),
+            getStatsEntry("Entity listener", metrics.getListenerCalls(), " calls, ", metrics.getListenerNpcHits(),
+                " on NPCs, ", metrics.getListenerCancels(), " cancelled"),
+            getStatsEntry("Skins", metrics.getSkinRequests(), " requests, ", metrics.getSkinCacheHits(),
+                " cache hits, ", metrics.getSkinLookups(), " lookups (", metrics.getSkinLookupFailures(),
+                " failed), mean lookup ", millis(metrics.getSkinLookupMeanNanos()), " ms"));
+        return PaginationList.builder()
+            .title(Text.builder("NPC Stats").color(GRAY).build())
+            .contents(lines)
+            .build();
+    }
+
+    private static Text getStatsEntry(String subsystem, Object... stats) {
+        return STATS_ENTRY.apply(ImmutableMap.of("subsystem", Text.of(subsystem), "stats", Text.of(stats))).build();
+    }
+
+    private static String millis(double nanos) {
+        return String.format("%.3f", nanos / 1_000_000);
+    }
+
     public static Text selfInsertingText(Text text) {
         return text.toBuilder().onShiftClick(insertText(text.toPlain())).build();
     }
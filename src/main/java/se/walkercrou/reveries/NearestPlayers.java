@@ -0,0 +1,72 @@
+package se.walkercrou.reveries;
+
+import com.flowpowered.math.vector.Vector3d;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Bounded k-nearest query over a set of player slots. The nearest players are kept sorted by distance in arrays that
+ * are reused from one query to the next, so a query allocates nothing once the arrays have grown to the largest k
+ * asked for. Players at the same distance are ordered by slot, which keeps the result deterministic. Only for use on
+ * the main thread.
+ */
+public final class NearestPlayers {
+
+    private int[] slots = new int[HeadTracking.DEFAULT_CANDIDATES];
+    private double[] distancesSq = new double[HeadTracking.DEFAULT_CANDIDATES];
+    private int size;
+
+    /**
+     * Finds the at most {@code k} players in the given slots that are nearest to the origin, measured to their eyes,
+     * and returns how many were found.
+     */
+    public int query(BitSet candidates, PlayerSlots players, Vector3d origin, int k) {
+        if (k > this.slots.length) {
+            this.slots = Arrays.copyOf(this.slots, k);
+            this.distancesSq = Arrays.copyOf(this.distancesSq, k);
+        }
+        this.size = 0;
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            if (players.getPlayer(slot) == null)
+                continue;
+            double distanceSq = players.getEye(slot).distanceSquared(origin);
+            if (this.size == k && distanceSq >= this.distancesSq[k - 1])
+                continue;
+
+            // insertion into the sorted prefix, dropping the farthest once full
+            int i = this.size < k ? this.size++ : k - 1;
+            for (; i > 0 && this.distancesSq[i - 1] > distanceSq; i--) {
+                this.slots[i] = this.slots[i - 1];
+                this.distancesSq[i] = this.distancesSq[i - 1];
+            }
+            this.slots[i] = slot;
+            this.distancesSq[i] = distanceSq;
+        }
+        return this.size;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int getSlot(int index) {
+        return this.slots[index];
+    }
+
+    public double getDistanceSquared(int index) {
+        return this.distancesSq[index];
+    }
+
+    /**
+     * Returns the position of the given slot in the last result, or -1 if it is not in it.
+     */
+    public int indexOf(int slot) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.slots[i] == slot)
+                return i;
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,133 @@
+package se.walkercrou.reveries;
+
+import org.spongepowered.api.data.DataTransactionResult;
+import org.spongepowered.api.entity.living.Living;
+import org.spongepowered.api.text.Text;
+import se.walkercrou.reveries.data.impl.ReveriesNpcData;
+import se.walkercrou.reveries.data.npc.NpcData;
+import se.walkercrou.reveries.sight.SightMode;
+import se.walkercrou.reveries.trait.NpcTrait;
+import se.walkercrou.reveries.trait.NpcTraitSet;
+
+import java.util.UUID;
+
+/**
+ * Handle to a loaded NPC that mirrors its {@link NpcData} in plain fields. Hot paths read from here instead of the
+ * data API, which would copy a manipulator and allocate a value for every access. The handle is refreshed whenever
+ * data is offered through {@link #offer(NpcData)}, which is how all Reveries code changes NPC data.
+ */
+public final class Npc {
+
+    private final Living entity;
+    private final UUID uniqueId;
+
+    private UUID ownerId;
+    private Text displayName;
+    private double sightRange;
+    private double viewAngle;
+    private double viewCos;
+    private SightMode sightMode;
+    private NpcTraitSet traits;
+    private int monitorInterval;
+
+    // the values this handle was last indexed under by the registry
+    UUID indexedOwner;
+    UUID indexedWorld;
+    NpcTraitSet indexedTraits;
+
+    Npc(Living entity, NpcData data) {
+        this.entity = entity;
+        this.uniqueId = entity.getUniqueId();
+        sync(data);
+    }
+
+    public Living getEntity() {
+        return this.entity;
+    }
+
+    public UUID getUniqueId() {
+        return this.uniqueId;
+    }
+
+    public UUID getOwnerId() {
+        return this.ownerId;
+    }
+
+    public Text getDisplayName() {
+        return this.displayName;
+    }
+
+    public double getSightRange() {
+        return this.sightRange;
+    }
+
+    public double getViewAngle() {
+        return this.viewAngle;
+    }
+
+    /**
+     * Cosine of half the view angle, the smallest dot product between the NPC's facing and the unit direction to a
+     * player that still puts the player inside the view cone.
+     */
+    public double getViewCos() {
+        return this.viewCos;
+    }
+
+    public boolean hasViewCone() {
+        return this.viewAngle < 360;
+    }
+
+    public SightMode getSightMode() {
+        return this.sightMode;
+    }
+
+    public int getMonitorInterval() {
+        return this.monitorInterval;
+    }
+
+    /**
+     * Returns the traits of this NPC. The set is shared with every other NPC that has the same traits and cannot be
+     * changed.
+     */
+    public NpcTraitSet getTraits() {
+        return this.traits;
+    }
+
+    public boolean hasTrait(NpcTrait trait) {
+        return this.traits.has(trait.getOrdinal());
+    }
+
+    public NpcData getData() {
+        return this.entity.get(NpcData.class).get();
+    }
+
+    public DataTransactionResult offer(NpcData data) {
+        DataTransactionResult result = this.entity.offer(data);
+        if (result.isSuccessful())
+            sync(data);
+        return result;
+    }
+
+    void sync(NpcData data) {
+        if (data instanceof ReveriesNpcData) {
+            ReveriesNpcData npcData = (ReveriesNpcData) data;
+            this.ownerId = npcData.getOwnerId();
+            this.displayName = npcData.getDisplayName();
+            this.sightRange = npcData.getSightRange();
+            this.viewAngle = npcData.getViewAngle();
+            this.sightMode = npcData.getSightMode();
+            this.traits = npcData.getTraits();
+            this.monitorInterval = npcData.getMonitorInterval();
+        } else {
+            this.ownerId = data.ownerId().get();
+            this.displayName = data.displayName().get();
+            this.sightRange = data.sightRange().get();
+            this.viewAngle = data.viewAngle().get();
+            this.sightMode = data.sightMode().get();
+            this.traits = NpcTraitSet.intern(data.traits().get());
+            this.monitorInterval = data.monitorInterval().get();
+        }
+        this.viewCos = Math.cos(Math.toRadians(this.viewAngle / 2));
+    }
+
+}
@@ -0,0 +1,283 @@
+package se.walkercrou.reveries;
+
+import com.flowpowered.math.vector.Vector3i;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.spongepowered.api.entity.living.Living;
+import se.walkercrou.reveries.trait.NpcTrait;
+import se.walkercrou.reveries.trait.NpcTraitRegistryModule;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+/**
+ * Memory-mapped record of every known NPC, including those in unloaded chunks. Each NPC takes one fixed-size record
+ * holding its world, chunk, owner, trait mask and sight range, and records are written in place as NPCs are loaded,
+ * changed and unloaded. Opening the index only reads the record ids back into a hash map, so it costs next to nothing
+ * at boot regardless of how many chunks the NPCs are spread over. Everything here must be used from the main thread.
+ */
+public final class NpcIndex {
+
+    private static final int MAGIC = 0x52564E58; // RVNX
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+    private static final int RECORD = 80;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static final int NPC_ID = 0;
+    private static final int WORLD_ID = 16;
+    private static final int CHUNK_X = 32;
+    private static final int CHUNK_Z = 36;
+    private static final int OWNER_ID = 40;
+    private static final int TRAIT_MASK = 56;
+    private static final int SIGHT_RANGE = 64;
+
+    private final Map<UUID, Integer> records = Maps.newHashMap();
+    private final Map<UUID, Integer> ownedCounts = Maps.newHashMap();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int count;
+
+    public void open(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        this.channel = FileChannel.open(file,
+            StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        long size = this.channel.size();
+        map(Math.max(INITIAL_CAPACITY, (int) (Math.max(0, size - HEADER) / RECORD)));
+
+        if (size < HEADER || this.buffer.getInt(0) != MAGIC || this.buffer.getInt(4) != VERSION
+                || this.buffer.getInt(8) > this.capacity) {
+            this.buffer.putInt(0, MAGIC);
+            this.buffer.putInt(4, VERSION);
+            this.buffer.putInt(8, 0);
+        }
+
+        this.count = this.buffer.getInt(8);
+        for (int i = 0; i < this.count; i++) {
+            this.records.put(getUuid(offset(i) + NPC_ID), i);
+            countOwned(getUuid(offset(i) + OWNER_ID), 1);
+        }
+    }
+
+    public boolean isOpen() {
+        return this.buffer != null;
+    }
+
+    public void close() throws IOException {
+        if (this.buffer == null)
+            return;
+        this.buffer.force();
+        this.buffer = null;
+        this.channel.close();
+        this.channel = null;
+        this.records.clear();
+        this.ownedCounts.clear();
+        this.count = 0;
+    }
+
+    /**
+     * Writes the current state of a loaded NPC to its record, adding one if the NPC is new.
+     */
+    public void update(Npc npc) {
+        if (this.buffer == null)
+            return;
+        Integer index = this.records.get(npc.getUniqueId());
+        if (index == null) {
+            ensureCapacity(this.count + 1);
+            index = this.count++;
+            this.records.put(npc.getUniqueId(), index);
+            this.buffer.putInt(8, this.count);
+        } else
+            countOwned(getUuid(offset(index) + OWNER_ID), -1);
+        countOwned(npc.getOwnerId(), 1);
+
+        Living entity = npc.getEntity();
+        Vector3i block = entity.getLocation().getBlockPosition();
+        int offset = offset(index);
+        putUuid(offset + NPC_ID, npc.getUniqueId());
+        putUuid(offset + WORLD_ID, entity.getWorld().getUniqueId());
+        this.buffer.putInt(offset + CHUNK_X, block.getX() >> 4);
+        this.buffer.putInt(offset + CHUNK_Z, block.getZ() >> 4);
+        putUuid(offset + OWNER_ID, npc.getOwnerId());
+        // only the default traits have ordinals that stay the same across restarts
+        this.buffer.putLong(offset + TRAIT_MASK, npc.getTraits().getMask() & NpcTraitRegistryModule.getDefaultMask());
+        this.buffer.putDouble(offset + SIGHT_RANGE, npc.getSightRange());
+    }
+
+    /**
+     * Drops the record of an NPC that no longer exists. The last record is moved into the freed one so that the
+     * records stay dense.
+     */
+    public boolean remove(UUID npcId) {
+        if (this.buffer == null)
+            return false;
+        Integer index = this.records.remove(npcId);
+        if (index == null)
+            return false;
+        countOwned(getUuid(offset(index) + OWNER_ID), -1);
+        int last = --this.count;
+        if (index != last) {
+            int from = offset(last), to = offset(index);
+            for (int i = 0; i < RECORD; i += 8)
+                this.buffer.putLong(to + i, this.buffer.getLong(from + i));
+            this.records.put(getUuid(to + NPC_ID), index);
+        }
+        this.buffer.putInt(8, this.count);
+        return true;
+    }
+
+    public Optional<Entry> get(UUID npcId) {
+        Integer index = this.records.get(npcId);
+        return index == null ? Optional.empty() : Optional.of(read(index));
+    }
+
+    public boolean contains(UUID npcId) {
+        return this.records.containsKey(npcId);
+    }
+
+    /**
+     * Returns the records that match every given criterion, null criteria match anything. Only default traits are
+     * recorded, so no record matches any other trait.
+     */
+    public List<Entry> find(@Nullable UUID ownerId, @Nullable UUID worldId, @Nullable NpcTrait trait) {
+        if (this.count == 0)
+            return Collections.emptyList();
+        long traitBit = 0;
+        if (trait != null) {
+            long defaults = NpcTraitRegistryModule.getDefaultMask();
+            traitBit = trait.getOrdinal() >= 0 && trait.getOrdinal() < 64 ? defaults & 1L << trait.getOrdinal() : 0;
+            if (traitBit == 0)
+                return Collections.emptyList();
+        }
+
+        List<Entry> entries = Lists.newArrayList();
+        for (int i = 0; i < this.count; i++) {
+            int offset = offset(i);
+            if ((ownerId == null || ownerId.equals(getUuid(offset + OWNER_ID)))
+                    && (worldId == null || worldId.equals(getUuid(offset + WORLD_ID)))
+                    && (this.buffer.getLong(offset + TRAIT_MASK) & traitBit) == traitBit)
+                entries.add(read(i));
+        }
+        return entries;
+    }
+
+    public int size() {
+        return this.count;
+    }
+
+    public int getOwnedCount(UUID ownerId) {
+        return this.ownedCounts.getOrDefault(ownerId, 0);
+    }
+
+    private void countOwned(UUID ownerId, int delta) {
+        if (ownerId != null)
+            this.ownedCounts.merge(ownerId, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private Entry read(int index) {
+        int offset = offset(index);
+        return new Entry(getUuid(offset + NPC_ID), getUuid(offset + WORLD_ID), this.buffer.getInt(offset + CHUNK_X),
+            this.buffer.getInt(offset + CHUNK_Z), getUuid(offset + OWNER_ID), this.buffer.getLong(offset + TRAIT_MASK),
+            this.buffer.getDouble(offset + SIGHT_RANGE));
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= this.capacity)
+            return;
+        try {
+            map(this.capacity * 2);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void map(int capacity) throws IOException {
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) capacity * RECORD);
+        this.capacity = capacity;
+    }
+
+    private UUID getUuid(int offset) {
+        long most = this.buffer.getLong(offset), least = this.buffer.getLong(offset + 8);
+        return most == 0 && least == 0 ? null : new UUID(most, least);
+    }
+
+    private void putUuid(int offset, UUID uuid) {
+        this.buffer.putLong(offset, uuid == null ? 0 : uuid.getMostSignificantBits());
+        this.buffer.putLong(offset + 8, uuid == null ? 0 : uuid.getLeastSignificantBits());
+    }
+
+    private static int offset(int index) {
+        return HEADER + index * RECORD;
+    }
+
+    /**
+     * Copy of one record as it was when read.
+     */
+    public static final class Entry {
+
+        private final UUID npcId;
+        private final UUID worldId;
+        private final int chunkX;
+        private final int chunkZ;
+        private final UUID ownerId;
+        private final long traitMask;
+        private final double sightRange;
+
+        Entry(UUID npcId, UUID worldId, int chunkX, int chunkZ, UUID ownerId, long traitMask, double sightRange) {
+            this.npcId = npcId;
+            this.worldId = worldId;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.ownerId = ownerId;
+            this.traitMask = traitMask;
+            this.sightRange = sightRange;
+        }
+
+        public UUID getNpcId() {
+            return this.npcId;
+        }
+
+        public UUID getWorldId() {
+            return this.worldId;
+        }
+
+        public int getChunkX() {
+            return this.chunkX;
+        }
+
+        public int getChunkZ() {
+            return this.chunkZ;
+        }
+
+        public UUID getOwnerId() {
+            return this.ownerId;
+        }
+
+        /**
+         * Bits of the NPC's default traits by ordinal. Other traits are numbered in registration order, which may
+         * differ after a restart, and are not recorded.
+         */
+        public long getTraitMask() {
+            return this.traitMask;
+        }
+
+        public double getSightRange() {
+            return this.sightRange;
+        }
+
+    }
+
+}
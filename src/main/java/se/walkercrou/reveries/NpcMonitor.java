@@ -1,87 +1,328 @@
 package se.walkercrou.reveries;
 
 import com.flowpowered.math.vector.Vector3d;
-import com.google.common.collect.Sets;
 import org.spongepowered.api.data.property.AbstractProperty;
 import org.spongepowered.api.data.property.entity.EyeLocationProperty;
 import org.spongepowered.api.entity.living.Living;
 import org.spongepowered.api.entity.living.player.Player;
-import org.spongepowered.api.event.cause.Cause;
-import org.spongepowered.api.scheduler.Task;
-import se.walkercrou.reveries.data.npc.NpcData;
-import se.walkercrou.reveries.event.npc.NpcLoseSightOfPlayerEvent;
-import se.walkercrou.reveries.event.npc.NpcSpotPlayerEvent;
-import se.walkercrou.reveries.trait.NpcTrait;
+import org.spongepowered.api.world.World;
+import se.walkercrou.reveries.jfr.Jfr;
+import se.walkercrou.reveries.jfr.NpcMonitorEvent;
+import se.walkercrou.reveries.sight.OpacityCache;
+import se.walkercrou.reveries.sight.SightMode;
 import se.walkercrou.reveries.trait.NpcTraits;
 
-import java.util.Set;
-import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import java.util.BitSet;
+import java.util.UUID;
 
-public final class NpcMonitor implements Consumer<Task> {
+public final class NpcMonitor {
+
+    static final int NEAR_INTERVAL = 1;
+    static final int MID_INTERVAL = 4;
+    static final int FAR_INTERVAL = 20;
+
+    static final double NEAR_MARGIN = 8;
+    static final double MID_MARGIN = 48;
 
     private final Reveries plugin;
-    private final Living npc;
-    private final Set<Player> visible = Sets.newHashSet();
-    private Player tracking;
+    private final Npc npc;
+    private final BitSet visible = new BitSet();
+    private final BitSet inRange = new BitSet();
+    private final int phase;
+    private int tracking = -1;
+    private int lastSpotted = -1;
+    private long nextHeadTick;
+    private int interval = NEAR_INTERVAL;
+    private int countdown;
 
     boolean preview = false;
+    int index;
+
+    UUID lastWorld;
+    double lastX, lastZ;
+    boolean sleepy;
+    UUID dormantWorld;
+    long dormantChunk;
 
-    public NpcMonitor(Reveries plugin, Living npc) {
+    public NpcMonitor(Reveries plugin, Npc npc) {
         this.plugin = plugin;
         this.npc = npc;
+        this.phase = npc.getUniqueId().hashCode() & Integer.MAX_VALUE;
     }
 
-    @Override
-    public void accept(Task task) {
-        if (this.npc.isRemoved()) {
-            task.cancel();
-            return;
+    public Npc getNpc() {
+        return this.npc;
+    }
+
+    public boolean canSee(int playerSlot) {
+        return this.visible.get(playerSlot);
+    }
+
+    public int getInterval() {
+        return this.interval;
+    }
+
+    public boolean isDormant() {
+        return this.dormantWorld != null;
+    }
+
+    void wake() {
+        this.sleepy = false;
+        this.countdown = 0;
+    }
+
+    private boolean isDue() {
+        return --this.countdown <= 0;
+    }
+
+    double getSearchRange(double sightRange) {
+        return this.npc.getMonitorInterval() > 0 ? sightRange : sightRange + MID_MARGIN;
+    }
+
+    /**
+     * Places this NPC in a level of detail tier from the squared distance to its nearest player. NPCs with a fixed
+     * monitor interval skip the tiers entirely. On a tier change the next check is offset by a per-NPC phase so that
+     * NPCs entering a tier together don't all run on the same tick.
+     */
+    void retier(double sightRange, double nearestSq) {
+        // nobody within the search range and nobody left to lose sight of, nothing to do until a player comes near
+        this.sleepy = nearestSq == Double.POSITIVE_INFINITY && this.visible.isEmpty();
+
+        int fixed = this.npc.getMonitorInterval();
+        int interval;
+        if (fixed > 0)
+            interval = fixed;
+        else {
+            double near = sightRange + NEAR_MARGIN, mid = sightRange + MID_MARGIN;
+            interval = nearestSq <= near * near ? NEAR_INTERVAL
+                : nearestSq <= mid * mid ? MID_INTERVAL : FAR_INTERVAL;
         }
 
-        double sightRange = this.npc.get(NpcData.class).get().sightRange().get();
+        if (interval != this.interval) {
+            this.interval = interval;
+            this.countdown = 1 + this.phase % interval;
+        } else
+            this.countdown = interval;
+    }
+
+    boolean tick(PlayerSlots slots, PlayerGrid grid, OpacityCache opacity, HeadTracking headTracking,
+                 NearestPlayers nearest, VisibilityBatch batch) {
+        Living entity = this.npc.getEntity();
+        if (entity.isRemoved())
+            return false;
+        if (!isDue())
+            return true;
+
+        double sightRange = this.npc.getSightRange();
         if (sightRange > 0) {
-            Vector3d pos = this.npc.getLocation().getPosition();
-            Set<Player> visiblePlayers = this.npc.getWorld().getEntities(e ->
-                e instanceof Player && pos.distance(e.getLocation().getPosition()) <= sightRange).stream()
-                .map(e -> (Player) e).collect(Collectors.toSet());
-
-            Set<Player> toAdd = Sets.newHashSet();
-            Set<Player> toRemove = Sets.newHashSet();
-
-            for (Player player : visiblePlayers) {
-                if (!this.visible.contains(player)) {
-                    boolean cancelled = this.plugin.game.getEventManager().post(new NpcSpotPlayerEvent(
-                        this.npc, Cause.source(this.plugin.self).owner(player).build()));
-                    if (!cancelled)
-                        toAdd.add(player);
-                }
-            }
+            NpcMonitorEvent event = Jfr.AVAILABLE && NpcMonitorEvent.isRecorded() ? NpcMonitorEvent.start() : null;
+            Vector3d pos = entity.getLocation().getPosition();
+            UUID worldId = entity.getWorld().getUniqueId();
+            remember(worldId, pos);
+            this.inRange.clear();
+            double nearestSq = grid.query(worldId, pos.getX(), pos.getY(), pos.getZ(),
+                sightRange, getSearchRange(sightRange), this.inRange);
+            retier(sightRange, nearestSq);
+            diff(this.inRange, slots, opacity, batch);
+            track(slots, headTracking, nearest);
+            if (event != null)
+                event.end(this.npc.getUniqueId(), worldId, this.inRange.cardinality());
+        }
+        return true;
+    }
 
-            for (Player player : this.visible) {
-                if (!visiblePlayers.contains(player)) {
-                    boolean cancelled = this.plugin.game.getEventManager().post(new NpcLoseSightOfPlayerEvent(
-                        this.npc, Cause.source(this.plugin.self).owner(player).build()));
-                    if (!cancelled)
-                        toRemove.add(player);
-                }
-            }
+    boolean snapshot(VisibilitySnapshot snapshot) {
+        Living entity = this.npc.getEntity();
+        if (entity.isRemoved())
+            return false;
+        if (!isDue())
+            return true;
+
+        double sightRange = this.npc.getSightRange();
+        if (sightRange > 0) {
+            Vector3d pos = entity.getLocation().getPosition();
+            UUID worldId = entity.getWorld().getUniqueId();
+            remember(worldId, pos);
+            snapshot.addNpc(this, worldId, pos, sightRange, getSearchRange(sightRange));
+        }
+        return true;
+    }
+
+    private void remember(UUID worldId, Vector3d pos) {
+        this.lastWorld = worldId;
+        this.lastX = pos.getX();
+        this.lastZ = pos.getZ();
+    }
+
+    void diff(BitSet inRange, PlayerSlots slots, OpacityCache opacity, VisibilityBatch batch) {
+        this.plugin.getMetrics().recordCheck(inRange.cardinality());
+        if ((this.npc.hasViewCone() || this.npc.getSightMode() == SightMode.LINE_OF_SIGHT) && !inRange.isEmpty())
+            narrow(inRange, slots, opacity);
 
-            this.visible.addAll(toAdd);
-            this.visible.removeAll(toRemove);
+        for (int slot = inRange.nextSetBit(0); slot >= 0; slot = inRange.nextSetBit(slot + 1)) {
+            Player player = slots.getPlayer(slot);
+            // off-thread results are stripped of slots released since their snapshot, this only skips empty slots
+            if (player != null && !this.visible.get(slot))
+                batch.add(this, slot, player, slots.getCause(slot), true);
+        }
 
-            Set<NpcTrait> traits = this.npc.get(NpcData.class).get().traits().get();
-            if (traits.contains(NpcTraits.HEAD_TRACKING)) {
-                if (this.tracking == null)
-                    this.tracking = this.visible.stream().findAny().orElse(null);
-                else if (!this.visible.contains(this.tracking))
-                    this.tracking = null;
+        for (int slot = this.visible.nextSetBit(0); slot >= 0; slot = this.visible.nextSetBit(slot + 1)) {
+            if (!inRange.get(slot))
+                batch.add(this, slot, slots.getPlayer(slot), slots.getCause(slot), false);
+        }
+    }
 
-                if (this.tracking != null) {
-                    this.npc.lookAt(this.tracking.getProperty(EyeLocationProperty.class)
-                        .map(AbstractProperty::getValue).orElse(this.tracking.getLocation().getPosition()));
+    /**
+     * Drops the players in range that are outside the NPC's view cone or hidden behind opaque blocks. The cone is a
+     * single dot product and is checked first, so rays are only cast to players that passed both the distance and the
+     * cone check.
+     */
+    private void narrow(BitSet inRange, PlayerSlots slots, OpacityCache opacity) {
+        Living entity = this.npc.getEntity();
+        World world = entity.getWorld();
+        Vector3d eye = eyeOf(entity);
+        boolean cone = this.npc.hasViewCone();
+        boolean occlusion = this.npc.getSightMode() == SightMode.LINE_OF_SIGHT;
+
+        double fx = 0, fy = 0, fz = 0, cos = this.npc.getViewCos();
+        if (cone) {
+            Vector3d head = entity.getHeadRotation();
+            double pitch = Math.toRadians(head.getX()), yaw = Math.toRadians(head.getY());
+            double horizontal = Math.cos(pitch);
+            fx = -Math.sin(yaw) * horizontal;
+            fy = -Math.sin(pitch);
+            fz = Math.cos(yaw) * horizontal;
+        }
+
+        for (int slot = inRange.nextSetBit(0); slot >= 0; slot = inRange.nextSetBit(slot + 1)) {
+            Player player = slots.getPlayer(slot);
+            if (player == null)
+                continue;
+            Vector3d target = slots.getEye(slot);
+            if (cone) {
+                double dx = target.getX() - eye.getX();
+                double dy = target.getY() - eye.getY();
+                double dz = target.getZ() - eye.getZ();
+                if (dx * fx + dy * fy + dz * fz < cos * Math.sqrt(dx * dx + dy * dy + dz * dz)) {
+                    inRange.clear(slot);
+                    continue;
                 }
             }
+            if (occlusion) {
+                this.plugin.getMetrics().recordRay();
+                if (!opacity.isClear(world, eye, target))
+                    inRange.clear(slot);
+            }
+        }
+    }
+
+    private static Vector3d eyeOf(Living living) {
+        return living.getProperty(EyeLocationProperty.class)
+            .map(AbstractProperty::getValue).orElse(living.getLocation().getPosition());
+    }
+
+    void track(PlayerSlots slots, HeadTracking settings, NearestPlayers nearest) {
+        if (!this.npc.hasTrait(NpcTraits.HEAD_TRACKING))
+            return;
+
+        if (this.tracking != -1 && !this.visible.get(this.tracking))
+            this.tracking = -1;
+        if (!this.visible.isEmpty())
+            this.tracking = selectTarget(slots, settings, nearest);
+
+        long tick = slots.getTick();
+        if (this.tracking != -1 && tick >= this.nextHeadTick) {
+            boolean turned = turnHead(slots.getEye(this.tracking), settings);
+            this.plugin.getMetrics().recordHeadTurn(turned);
+            if (turned)
+                this.nextHeadTick = tick + settings.getUpdateInterval();
+        }
+    }
+
+    /**
+     * Picks the player to look at from the nearest visible players. A player the priority prefers is picked outright,
+     * otherwise the nearest player only replaces a still visible target once nearer than it by the switch margin.
+     */
+    private int selectTarget(PlayerSlots slots, HeadTracking settings, NearestPlayers nearest) {
+        Vector3d pos = this.npc.getEntity().getLocation().getPosition();
+        if (nearest.query(this.visible, slots, pos, settings.getCandidates()) == 0)
+            return -1;
+
+        int preferred = -1;
+        switch (settings.getPriority()) {
+            case OWNER:
+                UUID ownerId = this.npc.getOwnerId();
+                preferred = ownerId == null ? -1 : slots.getSlot(ownerId);
+                break;
+            case RECENT:
+                preferred = this.lastSpotted;
+                break;
+        }
+        if (preferred != -1 && nearest.indexOf(preferred) != -1)
+            return preferred;
+
+        int closest = nearest.getSlot(0);
+        if (this.tracking == -1 || this.tracking == closest || slots.getPlayer(this.tracking) == null)
+            return closest;
+        // the target is still visible, as track() drops targets that are not, so it keeps its place until the closest
+        // player is nearer by the margin, even once it has fallen out of the candidates
+        double currentSq = slots.getEye(this.tracking).distanceSquared(pos);
+        double margin = settings.getSwitchMargin();
+        return Math.sqrt(nearest.getDistanceSquared(0)) + margin < Math.sqrt(currentSq) ? closest : this.tracking;
+    }
+
+    /**
+     * Turns the head part of the way toward the target, unless it already faces it to within the minimum delta.
+     * Returns whether the head was turned.
+     */
+    private boolean turnHead(Vector3d target, HeadTracking settings) {
+        Living entity = this.npc.getEntity();
+        Vector3d eye = eyeOf(entity);
+        double dx = target.getX() - eye.getX();
+        double dy = target.getY() - eye.getY();
+        double dz = target.getZ() - eye.getZ();
+        double yaw = Math.toDegrees(Math.atan2(-dx, dz));
+        double pitch = Math.toDegrees(-Math.atan2(dy, Math.sqrt(dx * dx + dz * dz)));
+
+        Vector3d head = entity.getHeadRotation();
+        double dPitch = pitch - head.getX();
+        double dYaw = wrapDegrees(yaw - head.getY());
+        double min = settings.getMinDelta();
+        if (Math.abs(dPitch) < min && Math.abs(dYaw) < min)
+            return false;
+
+        // finish the turn outright once what would be left of it is too small to be worth another update
+        double step = settings.getSmoothing();
+        if (Math.abs(dPitch) * (1 - step) < min && Math.abs(dYaw) * (1 - step) < min)
+            step = 1;
+        entity.setHeadRotation(new Vector3d(head.getX() + dPitch * step, head.getY() + dYaw * step, head.getZ()));
+        return true;
+    }
+
+    private static double wrapDegrees(double degrees) {
+        degrees %= 360;
+        if (degrees >= 180)
+            degrees -= 360;
+        else if (degrees < -180)
+            degrees += 360;
+        return degrees;
+    }
+
+    void forget(PlayerSlots slots, int slot, VisibilityBatch batch) {
+        if (this.visible.get(slot))
+            batch.add(this, slot, slots.getPlayer(slot), slots.getCause(slot), false);
+    }
+
+    void apply(int slot, boolean spotted) {
+        if (spotted) {
+            this.visible.set(slot);
+            this.lastSpotted = slot;
+        } else {
+            this.visible.clear(slot);
+            if (this.tracking == slot)
+                this.tracking = -1;
+            if (this.lastSpotted == slot)
+                this.lastSpotted = -1;
         }
     }
 
@@ -0,0 +1,241 @@
+package se.walkercrou.reveries;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.spongepowered.api.data.DataTransactionResult;
+import org.spongepowered.api.entity.Entity;
+import org.spongepowered.api.entity.EntityType;
+import org.spongepowered.api.entity.living.Living;
+import se.walkercrou.reveries.data.npc.NpcData;
+import se.walkercrou.reveries.trait.NpcTrait;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+/**
+ * Membership of every loaded NPC keyed by entity id, mapped to its {@link Npc} handle. Event handlers that fire for
+ * arbitrary entities consult this before touching the data API so that ordinary entities are rejected with a single
+ * hash lookup. Loaded NPCs are also indexed by owner, world, entity type and trait, and these indexes are updated as
+ * NPCs come and go and have data offered.
+ */
+public final class NpcRegistry {
+
+    private final Map<UUID, Npc> npcs = Maps.newHashMap();
+    private final Map<UUID, Set<Npc>> byOwner = Maps.newHashMap();
+    private final Map<UUID, Set<Npc>> byWorld = Maps.newHashMap();
+    private final Map<EntityType, Set<Npc>> byType = Maps.newHashMap();
+    private final Map<NpcTrait, Set<Npc>> byTrait = Maps.newHashMap();
+    private final NpcIndex index;
+
+    public NpcRegistry(NpcIndex index) {
+        this.index = index;
+    }
+
+    public Optional<Npc> register(Entity entity) {
+        if (!(entity instanceof Living))
+            return Optional.empty();
+        Optional<NpcData> data = entity.get(NpcData.class);
+        if (!data.isPresent())
+            return Optional.empty();
+        return Optional.of(register((Living) entity, data.get()));
+    }
+
+    public Npc register(Living entity, NpcData data) {
+        Npc npc = this.npcs.get(entity.getUniqueId());
+        if (npc == null || npc.getEntity() != entity) {
+            if (npc != null)
+                deindex(npc);
+            npc = new Npc(entity, data);
+            this.npcs.put(npc.getUniqueId(), npc);
+        } else {
+            deindex(npc);
+            npc.sync(data);
+        }
+        index(npc);
+        this.index.update(npc);
+        return npc;
+    }
+
+    public DataTransactionResult offer(Living entity, NpcData data) {
+        Npc npc = this.npcs.get(entity.getUniqueId());
+        if (npc != null && npc.getEntity() == entity) {
+            deindex(npc);
+            DataTransactionResult result = npc.offer(data);
+            index(npc);
+            if (result.isSuccessful())
+                this.index.update(npc);
+            return result;
+        }
+        DataTransactionResult result = entity.offer(data);
+        if (result.isSuccessful())
+            register(entity, data);
+        return result;
+    }
+
+    /**
+     * Forgets a loaded NPC that is being unloaded, recording where it was left in the index.
+     */
+    public void unregister(UUID entityId) {
+        Npc npc = this.npcs.remove(entityId);
+        if (npc != null) {
+            deindex(npc);
+            this.index.update(npc);
+        }
+    }
+
+    /**
+     * Moves an NPC to the bucket of the world it is now in, after it has been teleported.
+     */
+    public void relocate(Npc npc) {
+        if (this.npcs.get(npc.getUniqueId()) == npc) {
+            deindex(npc);
+            index(npc);
+        }
+    }
+
+    /**
+     * Forgets an NPC that no longer exists, also dropping its index record.
+     */
+    public void destroy(UUID entityId) {
+        Npc npc = this.npcs.remove(entityId);
+        if (npc != null)
+            deindex(npc);
+        this.index.remove(entityId);
+    }
+
+    private void index(Npc npc) {
+        npc.indexedOwner = npc.getOwnerId();
+        npc.indexedWorld = npc.getEntity().getWorld().getUniqueId();
+        npc.indexedTraits = npc.getTraits();
+        if (npc.indexedOwner != null)
+            this.byOwner.computeIfAbsent(npc.indexedOwner, k -> Sets.newHashSet()).add(npc);
+        this.byWorld.computeIfAbsent(npc.indexedWorld, k -> Sets.newHashSet()).add(npc);
+        this.byType.computeIfAbsent(npc.getEntity().getType(), k -> Sets.newHashSet()).add(npc);
+        for (NpcTrait trait : npc.indexedTraits)
+            this.byTrait.computeIfAbsent(trait, k -> Sets.newHashSet()).add(npc);
+    }
+
+    private void deindex(Npc npc) {
+        if (npc.indexedWorld == null)
+            return;
+        if (npc.indexedOwner != null)
+            removeFrom(this.byOwner, npc.indexedOwner, npc);
+        removeFrom(this.byWorld, npc.indexedWorld, npc);
+        removeFrom(this.byType, npc.getEntity().getType(), npc);
+        for (NpcTrait trait : npc.indexedTraits)
+            removeFrom(this.byTrait, trait, npc);
+        npc.indexedOwner = null;
+        npc.indexedWorld = null;
+        npc.indexedTraits = null;
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Npc>> buckets, K key, Npc npc) {
+        Set<Npc> bucket = buckets.get(key);
+        if (bucket != null && bucket.remove(npc) && bucket.isEmpty())
+            buckets.remove(key);
+    }
+
+    /**
+     * Returns the loaded NPCs that match every given criterion, null criteria match anything. Only the smallest of
+     * the matching index buckets is walked, the other criteria are checked against its NPCs.
+     */
+    public List<Npc> find(@Nullable UUID ownerId, @Nullable UUID worldId, @Nullable EntityType type,
+                          @Nullable NpcTrait trait) {
+        Collection<Npc> candidates = this.npcs.values();
+        if (ownerId != null)
+            candidates = smaller(candidates, this.byOwner.get(ownerId));
+        if (worldId != null)
+            candidates = smaller(candidates, this.byWorld.get(worldId));
+        if (type != null)
+            candidates = smaller(candidates, this.byType.get(type));
+        if (trait != null)
+            candidates = smaller(candidates, this.byTrait.get(trait));
+
+        List<Npc> found = Lists.newArrayListWithCapacity(candidates.size());
+        for (Npc npc : candidates) {
+            if ((ownerId == null || ownerId.equals(npc.indexedOwner))
+                    && (worldId == null || worldId.equals(npc.indexedWorld))
+                    && (type == null || type.equals(npc.getEntity().getType()))
+                    && (trait == null || npc.hasTrait(trait)))
+                found.add(npc);
+        }
+        return found;
+    }
+
+    private static Collection<Npc> smaller(Collection<Npc> current, @Nullable Set<Npc> bucket) {
+        if (bucket == null)
+            return Collections.emptySet();
+        return bucket.size() < current.size() ? bucket : current;
+    }
+
+    /**
+     * Counts the NPCs in unloaded chunks that match every given criterion, from the index and without loading any
+     * chunks. Nothing is counted while the index is closed, or for traits the index does not record.
+     */
+    public int countUnloaded(@Nullable UUID ownerId, @Nullable UUID worldId, @Nullable NpcTrait trait) {
+        if (!this.index.isOpen())
+            return 0;
+        int count = 0;
+        for (NpcIndex.Entry entry : this.index.find(ownerId, worldId, trait)) {
+            if (!this.npcs.containsKey(entry.getNpcId()))
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns how many NPCs the given player owns. NPCs in unloaded chunks are counted too while the index is open.
+     */
+    public int getOwnedCount(UUID ownerId) {
+        if (this.index.isOpen())
+            return this.index.getOwnedCount(ownerId);
+        Set<Npc> owned = this.byOwner.get(ownerId);
+        return owned == null ? 0 : owned.size();
+    }
+
+    /**
+     * Records the current location of every loaded NPC in the index.
+     */
+    public void checkpoint() {
+        this.npcs.values().forEach(this.index::update);
+    }
+
+    public Optional<Npc> get(UUID entityId) {
+        return Optional.ofNullable(this.npcs.get(entityId));
+    }
+
+    public Optional<Npc> get(Living entity) {
+        Npc npc = this.npcs.get(entity.getUniqueId());
+        return npc != null ? Optional.of(npc) : register(entity);
+    }
+
+    public Collection<Npc> getAll() {
+        return Collections.unmodifiableCollection(this.npcs.values());
+    }
+
+    public boolean isNpc(UUID entityId) {
+        return this.npcs.containsKey(entityId);
+    }
+
+    public boolean hasTrait(UUID entityId, NpcTrait trait) {
+        Npc npc = this.npcs.get(entityId);
+        return npc != null && npc.hasTrait(trait);
+    }
+
+    public int size() {
+        return this.npcs.size();
+    }
+
+    public NpcIndex getIndex() {
+        return this.index;
+    }
+
+}
@@ -1,9 +1,30 @@
 package se.walkercrou.reveries;
 
+import org.spongepowered.api.text.Text;
+
+import java.util.Optional;
+
+import javax.annotation.Nullable;
+
 public final class NpcSpawnException extends Exception {
 
+    @Nullable private final Text text;
+
     public NpcSpawnException(String msg) {
+        this(msg, null);
+    }
+
+    public NpcSpawnException(String msg, @Nullable Text text) {
         super(msg);
+        this.text = text;
+    }
+
+    /**
+     * Returns a message for the player that tried to spawn the NPC, if there is something more specific to say than
+     * that it failed.
+     */
+    public Optional<Text> getText() {
+        return Optional.ofNullable(this.text);
     }
 
 }
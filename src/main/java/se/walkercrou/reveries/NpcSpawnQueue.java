@@ -0,0 +1,130 @@
+package se.walkercrou.reveries;
+
+import com.google.common.collect.Lists;
+import org.spongepowered.api.entity.living.Living;
+import org.spongepowered.api.event.cause.Cause;
+import org.spongepowered.api.scheduler.Task;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+/**
+ * Spawns queued batches of NPCs from templates, spread over as many ticks as it takes to stay within a per-tick time
+ * budget. Batches are spawned in the order they were queued, and the task only runs while there is something queued.
+ * Everything here must be used from the main thread.
+ */
+public final class NpcSpawnQueue implements Consumer<Task> {
+
+    private final Reveries plugin;
+    private final long budgetNanos;
+    private final Deque<Batch> batches = new ArrayDeque<>();
+    @Nullable private Task task;
+
+    public NpcSpawnQueue(Reveries plugin) {
+        this(plugin, BulkOperation.DEFAULT_BUDGET_MILLIS);
+    }
+
+    public NpcSpawnQueue(Reveries plugin, long budgetMillis) {
+        this.plugin = plugin;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    }
+
+    /**
+     * Queues an NPC to be spawned from the template at each of the given locations. The returned future completes on
+     * the main thread with the NPCs that were spawned, which leaves out any that failed to spawn.
+     */
+    public CompletableFuture<List<Living>> submit(NpcTemplate template, List<Location<World>> locations,
+                                                  Cause cause) {
+        if (locations.isEmpty())
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        Batch batch = new Batch(template, Lists.newArrayList(locations), cause);
+        this.batches.add(batch);
+        if (this.task == null) {
+            this.task = this.plugin.game.getScheduler().createTaskBuilder()
+                .name("reveries-spawn-queue")
+                .intervalTicks(1)
+                .execute(this)
+                .submit(this.plugin);
+        }
+        return batch.future;
+    }
+
+    @Override
+    public void accept(Task task) {
+        // always gets at least one NPC spawned, however small the budget
+        long deadline = System.nanoTime() + this.budgetNanos;
+        while (!this.batches.isEmpty()) {
+            Batch batch = this.batches.peek();
+            Location<World> location = batch.locations.get(batch.next++);
+            try {
+                batch.spawned.add(this.plugin.spawn(batch.template, location, batch.cause));
+            } catch (NpcSpawnException e) {
+                // skipped, the batch still completes with the NPCs that did spawn
+            } catch (RuntimeException e) {
+                this.batches.poll();
+                batch.future.completeExceptionally(e);
+                continue;
+            }
+
+            if (batch.next == batch.locations.size()) {
+                this.batches.poll();
+                batch.future.complete(Collections.unmodifiableList(batch.spawned));
+            }
+            if (System.nanoTime() >= deadline)
+                break;
+        }
+
+        if (this.batches.isEmpty()) {
+            task.cancel();
+            this.task = null;
+        }
+    }
+
+    /**
+     * Drops every queued batch, completing each with the NPCs it had spawned so far.
+     */
+    public void clear() {
+        Batch batch;
+        while ((batch = this.batches.poll()) != null)
+            batch.future.complete(Collections.unmodifiableList(batch.spawned));
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+    }
+
+    public int getQueuedCount() {
+        int queued = 0;
+        for (Batch batch : this.batches)
+            queued += batch.locations.size() - batch.next;
+        return queued;
+    }
+
+    private static final class Batch {
+
+        private final NpcTemplate template;
+        private final List<Location<World>> locations;
+        private final Cause cause;
+        private final List<Living> spawned;
+        private final CompletableFuture<List<Living>> future = new CompletableFuture<>();
+        private int next;
+
+        private Batch(NpcTemplate template, List<Location<World>> locations, Cause cause) {
+            this.template = template;
+            this.locations = locations;
+            this.cause = cause;
+            this.spawned = Lists.newArrayListWithCapacity(locations.size());
+        }
+
+    }
+
+}
@@ -0,0 +1,87 @@
+package se.walkercrou.reveries;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.entity.EntityType;
+import org.spongepowered.api.entity.living.Living;
+import se.walkercrou.reveries.data.npc.ImmutableNpcData;
+import se.walkercrou.reveries.data.npc.NpcData;
+import se.walkercrou.reveries.property.NpcProperties;
+import se.walkercrou.reveries.property.NpcProperty;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Named blueprint for spawning many alike NPCs. The NPC data is built once, when the template is made, and every NPC
+ * spawned from the template gets a copy of it with only the owner changed. The property values are applied in order
+ * once the NPC is in the world.
+ */
+public final class NpcTemplate {
+
+    /**
+     * Properties that are not copied from an NPC into a template, either because they only make sense for that one NPC
+     * or because their value is already part of the NPC data.
+     */
+    private static final Set<NpcProperty<?>> NOT_COPIED = ImmutableSet.of(
+        NpcProperties.LOCATION, NpcProperties.RIDING, NpcProperties.DISPLAY_NAME, NpcProperties.SIGHT_RANGE,
+        NpcProperties.VIEW_ANGLE, NpcProperties.SIGHT_MODE, NpcProperties.MONITOR_INTERVAL);
+
+    private final String name;
+    private final EntityType entityType;
+    private final ImmutableNpcData data;
+    private final Map<NpcProperty, Object> properties;
+
+    public NpcTemplate(String name, EntityType entityType, ImmutableNpcData data, Map<NpcProperty, Object> properties) {
+        checkNotNull(name, "null name");
+        checkNotNull(entityType, "null entity type");
+        checkNotNull(data, "null data");
+        checkArgument(Living.class.isAssignableFrom(entityType.getEntityClass()), "entity type must be living");
+        for (Map.Entry<NpcProperty, Object> entry : properties.entrySet()) {
+            checkArgument(entry.getKey().supports(entry.getValue()),
+                "unsupported value for property " + entry.getKey().getId());
+        }
+        this.name = name;
+        this.entityType = entityType;
+        this.data = data;
+        this.properties = ImmutableMap.copyOf(properties);
+    }
+
+    /**
+     * Makes a template that spawns copies of the given NPC.
+     */
+    public static NpcTemplate of(String name, Living npc, NpcData data) {
+        Map<NpcProperty, Object> properties = Maps.newLinkedHashMap();
+        for (NpcProperty prop : Sponge.getRegistry().getAllOf(NpcProperty.class)) {
+            if (NOT_COPIED.contains(prop))
+                continue;
+            Optional<?> value = prop.get(npc);
+            if (value.isPresent())
+                properties.put(prop, value.get());
+        }
+        return new NpcTemplate(name, npc.getType(), data.asImmutable(), properties);
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public EntityType getEntityType() {
+        return this.entityType;
+    }
+
+    public ImmutableNpcData getData() {
+        return this.data;
+    }
+
+    public Map<NpcProperty, Object> getProperties() {
+        return this.properties;
+    }
+
+}
@@ -0,0 +1,435 @@
+package se.walkercrou.reveries;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.flowpowered.math.vector.Vector3d;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.event.cause.Cause;
+import org.spongepowered.api.scheduler.Task;
+import se.walkercrou.reveries.event.npc.NpcLoseSightOfPlayerEvent;
+import se.walkercrou.reveries.event.npc.NpcSpotPlayerEvent;
+import se.walkercrou.reveries.event.npc.NpcVisibilityChangeEvent;
+import se.walkercrou.reveries.jfr.Jfr;
+import se.walkercrou.reveries.jfr.NpcTickEvent;
+import se.walkercrou.reveries.metrics.NpcMetrics;
+import se.walkercrou.reveries.sight.OpacityCache;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Drives every {@link NpcMonitor} from a single scheduler task. Monitors are kept in a dense list so that a pass is
+ * a plain loop, and removal swaps the last monitor into the vacated slot so that adding and removing are both O(1).
+ */
+public final class NpcTickEngine implements Consumer<Task> {
+
+    private final Reveries plugin;
+    private final NpcMetrics metrics;
+    private final List<NpcMonitor> monitors = Lists.newArrayList();
+    private final Map<UUID, NpcMonitor> monitorsById = Maps.newHashMap();
+    private final PlayerSlots playerSlots;
+    private final PlayerGrid playerGrid = new PlayerGrid();
+    private final VisibilityBatch batch = new VisibilityBatch();
+    private final DormantIndex dormant = new DormantIndex();
+    private final OpacityCache opacity = new OpacityCache();
+    private final HeadTracking headTracking = new HeadTracking();
+    private final NearestPlayers nearest = new NearestPlayers();
+    private final List<NpcMonitor> woken = Lists.newArrayList();
+    private UUID[] playerWorlds = new UUID[64];
+    private long[] playerChunks = new long[64];
+
+    private Cause batchCause;
+    private boolean singleEventListeners = true;
+    private Boolean deriveSingleEvents;
+
+    private final VisibilitySnapshot[] snapshots = { new VisibilitySnapshot(), new VisibilitySnapshot() };
+    private final BitSet released = new BitSet();
+    private int snapshotIndex;
+    private ForkJoinPool workers;
+    private ForkJoinTask<?> pending;
+
+    private Task task;
+    private long lastPassNanos;
+    private long maxPassNanos;
+    private double avgPassNanos;
+    private long passes;
+
+    public NpcTickEngine(Reveries plugin) {
+        this.plugin = plugin;
+        this.metrics = plugin.getMetrics();
+        this.playerSlots = new PlayerSlots(plugin);
+    }
+
+    public void start() {
+        checkState(this.task == null, "engine already started");
+        this.task = this.plugin.game.getScheduler().createTaskBuilder()
+            .name("reveries-npc-tick")
+            .delayTicks(1)
+            .intervalTicks(1)
+            .execute(this)
+            .submit(this.plugin);
+    }
+
+    public void stop() {
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+        setAsync(false);
+        this.opacity.clear();
+    }
+
+    public boolean isAsync() {
+        return this.workers != null;
+    }
+
+    /**
+     * Sets whether sight is computed off the main thread. In async mode the main thread only copies NPC and player
+     * positions into a snapshot each tick, worker threads find the players in range of every NPC from that snapshot,
+     * and the resulting transitions are applied and posted on the following tick.
+     */
+    public void setAsync(boolean async) {
+        if (async == isAsync())
+            return;
+        if (async) {
+            int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            this.workers = new ForkJoinPool(parallelism);
+        } else {
+            awaitPending();
+            this.workers.shutdown();
+            this.workers = null;
+        }
+    }
+
+    private boolean awaitPending() {
+        if (this.pending == null)
+            return false;
+        try {
+            this.pending.join();
+            return true;
+        } catch (RuntimeException e) {
+            this.plugin.log.error("Failed to compute NPC visibility", e);
+            return false;
+        } finally {
+            this.pending = null;
+        }
+    }
+
+    public boolean isMonitoring(UUID npcId) {
+        return this.monitorsById.containsKey(npcId);
+    }
+
+    public void add(Npc npc) {
+        UUID npcId = npc.getUniqueId();
+        checkArgument(!this.monitorsById.containsKey(npcId), "entity being monitored already");
+        NpcMonitor monitor = new NpcMonitor(this.plugin, npc);
+        monitor.index = this.monitors.size();
+        this.monitors.add(monitor);
+        this.monitorsById.put(npcId, monitor);
+    }
+
+    /**
+     * Monitors a freshly loaded NPC, replacing the monitor of an earlier entity with the same id if there is one.
+     */
+    public void resume(Npc npc) {
+        NpcMonitor monitor = this.monitorsById.get(npc.getUniqueId());
+        if (monitor != null) {
+            if (monitor.getNpc() == npc)
+                return;
+            remove(npc.getUniqueId());
+        }
+        add(npc);
+    }
+
+    public boolean remove(UUID npcId) {
+        NpcMonitor monitor = this.monitorsById.remove(npcId);
+        if (monitor == null)
+            return false;
+        if (monitor.isDormant())
+            this.dormant.remove(monitor);
+        else
+            removeAt(monitor.index);
+        return true;
+    }
+
+    private void sleep(NpcMonitor monitor) {
+        removeAt(monitor.index);
+        this.dormant.add(monitor, monitor.lastWorld, PlayerGrid.floor(monitor.lastX) >> 4,
+            PlayerGrid.floor(monitor.lastZ) >> 4, monitor.getSearchRange(monitor.getNpc().getSightRange()));
+    }
+
+    public void wake(UUID npcId) {
+        NpcMonitor monitor = this.monitorsById.get(npcId);
+        if (monitor != null && monitor.isDormant() && this.dormant.remove(monitor))
+            activate(monitor);
+    }
+
+    private void activate(NpcMonitor monitor) {
+        monitor.wake();
+        monitor.index = this.monitors.size();
+        this.monitors.add(monitor);
+    }
+
+    private void activateWoken() {
+        for (int i = 0; i < this.woken.size(); i++)
+            activate(this.woken.get(i));
+        this.woken.clear();
+    }
+
+    /**
+     * Wakes the dormant NPCs around every player that crossed into another chunk since the last tick.
+     */
+    private void wakeAroundPlayers() {
+        if (this.dormant.isEmpty())
+            return;
+        for (int slot = this.playerSlots.nextSlot(0); slot >= 0; slot = this.playerSlots.nextSlot(slot + 1)) {
+            Player player = this.playerSlots.getPlayer(slot);
+            if (player.isRemoved())
+                continue;
+            if (slot >= this.playerChunks.length) {
+                this.playerWorlds = Arrays.copyOf(this.playerWorlds, slot * 2);
+                this.playerChunks = Arrays.copyOf(this.playerChunks, slot * 2);
+            }
+            Vector3d pos = player.getLocation().getPosition();
+            UUID worldId = player.getWorld().getUniqueId();
+            int chunkX = PlayerGrid.floor(pos.getX()) >> 4, chunkZ = PlayerGrid.floor(pos.getZ()) >> 4;
+            long chunk = PlayerGrid.key(chunkX, chunkZ);
+            if (chunk != this.playerChunks[slot] || !worldId.equals(this.playerWorlds[slot])) {
+                this.playerChunks[slot] = chunk;
+                this.playerWorlds[slot] = worldId;
+                this.dormant.wakeAround(worldId, chunkX, chunkZ, this.woken);
+            }
+        }
+        activateWoken();
+    }
+
+    public OpacityCache getOpacity() {
+        return this.opacity;
+    }
+
+    public HeadTracking getHeadTracking() {
+        return this.headTracking;
+    }
+
+    public int getDormantCount() {
+        return this.dormant.size();
+    }
+
+    private void removeAt(int index) {
+        this.monitors.get(index).index = -1;
+        int last = this.monitors.size() - 1;
+        NpcMonitor moved = this.monitors.remove(last);
+        if (index != last) {
+            this.monitors.set(index, moved);
+            moved.index = index;
+        }
+    }
+
+    public void addPlayer(Player player) {
+        this.playerSlots.acquire(player);
+    }
+
+    public void removePlayer(UUID playerId) {
+        int slot = this.playerSlots.getSlot(playerId);
+        if (slot != -1) {
+            forgetPlayer(slot);
+            this.playerSlots.release(slot);
+            if (slot < this.playerWorlds.length)
+                this.playerWorlds[slot] = null;
+        }
+    }
+
+    public void forgetPlayer(UUID playerId) {
+        int slot = this.playerSlots.getSlot(playerId);
+        if (slot != -1)
+            forgetPlayer(slot);
+    }
+
+    /**
+     * Releases the slots of players whose entity is gone, after a death for example. NPCs lose sight of them right
+     * away rather than keeping a player that can never be seen again, and the player gets a slot again as they
+     * respawn.
+     */
+    private void releaseRemovedPlayers() {
+        for (int slot = this.playerSlots.nextSlot(0); slot >= 0; slot = this.playerSlots.nextSlot(slot + 1)) {
+            Player player = this.playerSlots.getPlayer(slot);
+            if (player.isRemoved())
+                removePlayer(player.getUniqueId());
+        }
+    }
+
+    private void forgetPlayer(int slot) {
+        for (int i = this.monitors.size() - 1; i >= 0; i--)
+            this.monitors.get(i).forget(this.playerSlots, slot, this.batch);
+        flushBatch(true);
+    }
+
+    private void flushBatch(boolean forced) {
+        if (this.batch.isEmpty())
+            return;
+        if (this.batchCause == null)
+            this.batchCause = Cause.source(this.plugin.self).build();
+        this.batch.flush(
+            this.plugin.game.getEventManager(), this.batchCause, isDerivingSingleEvents(), forced, this.metrics);
+    }
+
+    /**
+     * Returns whether a {@link NpcSpotPlayerEvent} or {@link NpcLoseSightOfPlayerEvent} is also posted for every
+     * transition of a {@link NpcVisibilityChangeEvent} that was not cancelled. Unless set otherwise this is only the
+     * case when something listens for them.
+     */
+    public boolean isDerivingSingleEvents() {
+        return this.deriveSingleEvents != null ? this.deriveSingleEvents : this.singleEventListeners;
+    }
+
+    /**
+     * Sets whether the single events are derived regardless of what listens for them.
+     */
+    public void setDeriveSingleEvents(boolean deriveSingleEvents) {
+        this.deriveSingleEvents = deriveSingleEvents;
+    }
+
+    /**
+     * Goes back to deriving the single events only when something listens for them.
+     */
+    public void resetDeriveSingleEvents() {
+        this.deriveSingleEvents = null;
+    }
+
+    /**
+     * Checks whether any listener is registered for the single events, or for one of their supertypes. Listeners are
+     * not tracked as they come and go, so this is done once the server has started and again on every reload. When
+     * the event manager cannot be asked the single events are derived as before.
+     */
+    public void detectSingleEventListeners() {
+        this.singleEventListeners = EventListeners.isListenedTo(this.plugin.game.getEventManager(),
+            NpcSpotPlayerEvent.class, NpcLoseSightOfPlayerEvent.class).orElse(true);
+    }
+
+    public PlayerSlots getPlayerSlots() {
+        return this.playerSlots;
+    }
+
+    public PlayerGrid getPlayerGrid() {
+        return this.playerGrid;
+    }
+
+    public int size() {
+        return this.monitorsById.size();
+    }
+
+    public int getActiveCount() {
+        return this.monitors.size();
+    }
+
+    public long getLastPassNanos() {
+        return this.lastPassNanos;
+    }
+
+    public long getMaxPassNanos() {
+        return this.maxPassNanos;
+    }
+
+    public double getAveragePassNanos() {
+        return this.avgPassNanos;
+    }
+
+    public long getPasses() {
+        return this.passes;
+    }
+
+    @Override
+    public void accept(Task task) {
+        NpcTickEvent event = Jfr.AVAILABLE ? NpcTickEvent.start() : null;
+        long start = System.nanoTime();
+        this.playerSlots.advance();
+        releaseRemovedPlayers();
+        wakeAroundPlayers();
+        if (this.workers == null)
+            tickSync();
+        else
+            tickAsync();
+
+        long elapsed = System.nanoTime() - start;
+        this.lastPassNanos = elapsed;
+        this.metrics.recordPass(elapsed);
+        if (event != null)
+            event.end(this.monitors.size(), this.dormant.size(), this.playerSlots.size(), this.workers != null);
+        if (elapsed > this.maxPassNanos)
+            this.maxPassNanos = elapsed;
+        this.avgPassNanos = this.passes++ == 0 ? elapsed : this.avgPassNanos * 0.95 + elapsed * 0.05;
+    }
+
+    private void tickSync() {
+        this.playerGrid.rebuild(this.playerSlots);
+
+        // iterate backwards so a swap-removal only ever moves an already visited monitor into the current slot
+        for (int i = this.monitors.size() - 1; i >= 0; i--) {
+            NpcMonitor monitor = this.monitors.get(i);
+            if (!monitor.tick(this.playerSlots, this.playerGrid, this.opacity, this.headTracking, this.nearest,
+                    this.batch)) {
+                this.monitorsById.remove(monitor.getNpc().getUniqueId());
+                removeAt(i);
+            } else if (monitor.sleepy)
+                sleep(monitor);
+        }
+        flushBatch(false);
+    }
+
+    private void tickAsync() {
+        VisibilitySnapshot computed = this.snapshots[this.snapshotIndex];
+        if (awaitPending()) {
+            // slots released since the snapshot may already hold another player, who the results are not about
+            this.released.clear();
+            computed.collectReleased(this.playerSlots, this.released);
+            for (int i = 0; i < computed.size(); i++) {
+                NpcMonitor monitor = computed.getMonitor(i);
+                if (monitor.index != -1) {
+                    BitSet result = computed.getResult(i);
+                    result.andNot(this.released);
+                    monitor.retier(computed.getRange(i), computed.getNearestSquared(i));
+                    monitor.diff(result, this.playerSlots, this.opacity, this.batch);
+                }
+            }
+            flushBatch(false);
+            for (int i = 0; i < computed.size(); i++) {
+                NpcMonitor monitor = computed.getMonitor(i);
+                if (monitor.index == -1)
+                    continue;
+                if (monitor.sleepy)
+                    sleep(monitor);
+                else
+                    monitor.track(this.playerSlots, this.headTracking, this.nearest);
+            }
+        }
+
+        this.snapshotIndex ^= 1;
+        VisibilitySnapshot next = this.snapshots[this.snapshotIndex];
+        next.clear();
+        for (int i = this.monitors.size() - 1; i >= 0; i--) {
+            NpcMonitor monitor = this.monitors.get(i);
+            if (!monitor.snapshot(next)) {
+                this.monitorsById.remove(monitor.getNpc().getUniqueId());
+                removeAt(i);
+            }
+        }
+        for (int slot = this.playerSlots.nextSlot(0); slot >= 0; slot = this.playerSlots.nextSlot(slot + 1)) {
+            Player player = this.playerSlots.getPlayer(slot);
+            if (!player.isRemoved())
+                next.addPlayer(slot, this.playerSlots.getGeneration(slot), player.getWorld().getUniqueId(),
+                    player.getLocation().getPosition());
+        }
+        if (next.size() > 0)
+            this.pending = this.workers.submit(next::compute);
+    }
+
+}
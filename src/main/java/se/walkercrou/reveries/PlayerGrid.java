@@ -0,0 +1,153 @@
+package se.walkercrou.reveries;
+
+import com.flowpowered.math.vector.Vector3d;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.spongepowered.api.entity.living.player.Player;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Spatial index of online player slots, bucketed per world into chunk sized cells. The grid is rebuilt once per
+ * tick so that sight queries only have to look at the cells overlapping an NPC's sight range. Queries only read, so
+ * once built a grid may be shared by any number of threads.
+ */
+public final class PlayerGrid {
+
+    public static final int CELL_SHIFT = 4;
+
+    private final Map<UUID, Map<Long, Cell>> worlds = Maps.newHashMap();
+    private final List<Cell> pool = Lists.newArrayList();
+
+    public void rebuild(PlayerSlots slots) {
+        clear();
+        for (int slot = slots.nextSlot(0); slot >= 0; slot = slots.nextSlot(slot + 1)) {
+            Player player = slots.getPlayer(slot);
+            if (player.isRemoved())
+                continue;
+            Vector3d pos = player.getLocation().getPosition();
+            add(player.getWorld().getUniqueId(), slot, pos.getX(), pos.getY(), pos.getZ());
+        }
+    }
+
+    public void clear() {
+        Iterator<Map<Long, Cell>> it = this.worlds.values().iterator();
+        while (it.hasNext()) {
+            Map<Long, Cell> cells = it.next();
+            if (cells.isEmpty()) {
+                it.remove();
+                continue;
+            }
+            for (Cell cell : cells.values()) {
+                cell.clear();
+                this.pool.add(cell);
+            }
+            cells.clear();
+        }
+    }
+
+    public void add(UUID worldId, int slot, double x, double y, double z) {
+        Map<Long, Cell> cells = this.worlds.computeIfAbsent(worldId, id -> Maps.newHashMap());
+        long key = key(floor(x) >> CELL_SHIFT, floor(z) >> CELL_SHIFT);
+        Cell cell = cells.get(key);
+        if (cell == null) {
+            cell = this.pool.isEmpty() ? new Cell() : this.pool.remove(this.pool.size() - 1);
+            cells.put(key, cell);
+        }
+        cell.add(slot, x, y, z);
+    }
+
+    public double query(UUID worldId, Vector3d center, double range, BitSet out) {
+        return query(worldId, center.getX(), center.getY(), center.getZ(), range, range, out);
+    }
+
+    /**
+     * Sets the slots of all players within {@code range} in {@code out} and returns the squared distance to the
+     * nearest player within {@code searchRange}, or infinity if there is none. The search range must be at least the
+     * range and lets callers find out how close the nearest player is even when nobody is in range.
+     */
+    public double query(UUID worldId, double x, double y, double z, double range, double searchRange, BitSet out) {
+        Map<Long, Cell> cells = this.worlds.get(worldId);
+        if (cells == null)
+            return Double.POSITIVE_INFINITY;
+
+        double rangeSq = range * range, searchSq = searchRange * searchRange;
+        int minX = floor(x - searchRange) >> CELL_SHIFT, maxX = floor(x + searchRange) >> CELL_SHIFT;
+        int minZ = floor(z - searchRange) >> CELL_SHIFT, maxZ = floor(z + searchRange) >> CELL_SHIFT;
+
+        double nearest = Double.POSITIVE_INFINITY;
+        if ((long) (maxX - minX + 1) * (maxZ - minZ + 1) > cells.size()) {
+            // the range covers more cells than are occupied, so visit the occupied ones instead
+            for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+                long key = entry.getKey();
+                int cx = (int) (key >> 32), cz = (int) key;
+                if (cx >= minX && cx <= maxX && cz >= minZ && cz <= maxZ)
+                    nearest = Math.min(nearest, entry.getValue().collect(x, y, z, rangeSq, searchSq, out));
+            }
+            return nearest;
+        }
+
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                Cell cell = cells.get(key(cx, cz));
+                if (cell != null)
+                    nearest = Math.min(nearest, cell.collect(x, y, z, rangeSq, searchSq, out));
+            }
+        }
+        return nearest;
+    }
+
+    static long key(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xffffffffL);
+    }
+
+    static int floor(double value) {
+        int i = (int) value;
+        return value < i ? i - 1 : i;
+    }
+
+    private static final class Cell {
+
+        private int[] slots = new int[4];
+        private double[] coords = new double[12];
+        private int size;
+
+        void add(int slot, double x, double y, double z) {
+            if (this.size == this.slots.length) {
+                this.slots = Arrays.copyOf(this.slots, this.size * 2);
+                this.coords = Arrays.copyOf(this.coords, this.size * 6);
+            }
+            this.slots[this.size] = slot;
+            int c = this.size * 3;
+            this.coords[c] = x;
+            this.coords[c + 1] = y;
+            this.coords[c + 2] = z;
+            this.size++;
+        }
+
+        double collect(double x, double y, double z, double rangeSq, double searchSq, BitSet out) {
+            double nearest = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < this.size; i++) {
+                int c = i * 3;
+                double dx = this.coords[c] - x, dy = this.coords[c + 1] - y, dz = this.coords[c + 2] - z;
+                double distSq = dx * dx + dy * dy + dz * dz;
+                if (distSq <= rangeSq)
+                    out.set(this.slots[i]);
+                if (distSq <= searchSq && distSq < nearest)
+                    nearest = distSq;
+            }
+            return nearest;
+        }
+
+        void clear() {
+            this.size = 0;
+        }
+
+    }
+
+}
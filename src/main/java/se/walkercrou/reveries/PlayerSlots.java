@@ -0,0 +1,128 @@
+package se.walkercrou.reveries;
+
+import com.flowpowered.math.vector.Vector3d;
+import com.google.common.collect.Maps;
+import org.spongepowered.api.data.property.AbstractProperty;
+import org.spongepowered.api.data.property.entity.EyeLocationProperty;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.event.cause.Cause;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Assigns every online player a small integer slot so that per-NPC visibility can be kept in {@link BitSet}s rather
+ * than in sets of {@link Player} references. Slots are reused as soon as their player disconnects, which keeps the
+ * bit sets as dense as the player count allows. Player eye positions are looked up at most once per slot per tick
+ * and shared by every NPC that needs them.
+ */
+public final class PlayerSlots {
+
+    private final Reveries plugin;
+    private final Map<UUID, Integer> slotsById = Maps.newHashMap();
+    private final BitSet used = new BitSet();
+    private Player[] players = new Player[64];
+    private Cause[] causes = new Cause[64];
+    private Vector3d[] eyes = new Vector3d[64];
+    private long[] eyeTicks = new long[64];
+    private int[] generations = new int[64];
+    private long tick = 1;
+
+    public PlayerSlots(Reveries plugin) {
+        this.plugin = plugin;
+    }
+
+    public int acquire(Player player) {
+        Integer existing = this.slotsById.get(player.getUniqueId());
+        if (existing != null) {
+            // the player object is replaced on respawn, keep the slot but refresh the reference
+            this.players[existing] = player;
+            this.causes[existing] = Cause.source(this.plugin.self).owner(player).build();
+            this.eyeTicks[existing] = 0;
+            return existing;
+        }
+
+        int slot = this.used.nextClearBit(0);
+        if (slot >= this.players.length) {
+            this.players = Arrays.copyOf(this.players, this.players.length * 2);
+            this.causes = Arrays.copyOf(this.causes, this.causes.length * 2);
+            this.eyes = Arrays.copyOf(this.eyes, this.eyes.length * 2);
+            this.eyeTicks = Arrays.copyOf(this.eyeTicks, this.eyeTicks.length * 2);
+            this.generations = Arrays.copyOf(this.generations, this.generations.length * 2);
+        }
+        this.used.set(slot);
+        this.players[slot] = player;
+        this.causes[slot] = Cause.source(this.plugin.self).owner(player).build();
+        this.slotsById.put(player.getUniqueId(), slot);
+        return slot;
+    }
+
+    public void release(int slot) {
+        Player player = this.players[slot];
+        if (player == null)
+            return;
+        this.slotsById.remove(player.getUniqueId());
+        this.used.clear(slot);
+        this.players[slot] = null;
+        this.causes[slot] = null;
+        this.eyes[slot] = null;
+        this.eyeTicks[slot] = 0;
+        this.generations[slot]++;
+    }
+
+    /**
+     * Starts a new tick, after which eye positions are looked up afresh.
+     */
+    public void advance() {
+        this.tick++;
+    }
+
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * Returns the eye position of the player in the given slot as of the current tick.
+     */
+    public Vector3d getEye(int slot) {
+        if (this.eyeTicks[slot] != this.tick) {
+            Player player = this.players[slot];
+            this.eyes[slot] = player.getProperty(EyeLocationProperty.class)
+                .map(AbstractProperty::getValue).orElse(player.getLocation().getPosition());
+            this.eyeTicks[slot] = this.tick;
+        }
+        return this.eyes[slot];
+    }
+
+    /**
+     * Returns how many times the given slot has been released. A slot holds the same player for as long as its
+     * generation stays the same, so results computed for a slot earlier can be told apart from a new player's.
+     */
+    public int getGeneration(int slot) {
+        return this.generations[slot];
+    }
+
+    public int getSlot(UUID playerId) {
+        Integer slot = this.slotsById.get(playerId);
+        return slot == null ? -1 : slot;
+    }
+
+    public Player getPlayer(int slot) {
+        return this.players[slot];
+    }
+
+    public Cause getCause(int slot) {
+        return this.causes[slot];
+    }
+
+    public int nextSlot(int from) {
+        return this.used.nextSetBit(from);
+    }
+
+    public int size() {
+        return this.slotsById.size();
+    }
+
+}
@@ -3,15 +3,14 @@ package se.walkercrou.reveries;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.spongepowered.api.Game;
 import org.spongepowered.api.GameRegistry;
-import org.spongepowered.api.Sponge;
+import org.spongepowered.api.config.ConfigDir;
 import org.spongepowered.api.data.key.Keys;
 import org.spongepowered.api.data.manipulator.mutable.DisplayNameData;
-import org.spongepowered.api.entity.Entity;
 import org.spongepowered.api.entity.EntityType;
 import org.spongepowered.api.entity.living.Living;
 import org.spongepowered.api.event.EventManager;
@@ -24,42 +23,79 @@ import org.spongepowered.api.event.game.state.GameStartedServerEvent;
 import org.spongepowered.api.event.game.state.GameStoppedEvent;
 import org.spongepowered.api.plugin.Plugin;
 import org.spongepowered.api.plugin.PluginContainer;
+import org.spongepowered.api.profile.GameProfileManager;
+import org.spongepowered.api.service.permission.Subject;
 import org.spongepowered.api.text.Text;
 import org.spongepowered.api.util.Identifiable;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 import se.walkercrou.reveries.cmd.CommandRegistrar;
+import se.walkercrou.reveries.data.NpcKeys;
+import se.walkercrou.reveries.data.impl.NpcDataContentUpdater;
 import se.walkercrou.reveries.data.impl.NpcDataManipulatorBuilder;
 import se.walkercrou.reveries.data.impl.ReveriesNpcData;
 import se.walkercrou.reveries.data.npc.ImmutableNpcData;
 import se.walkercrou.reveries.data.npc.NpcData;
 import se.walkercrou.reveries.event.EntityListener;
 import se.walkercrou.reveries.event.NpcListener;
+import se.walkercrou.reveries.event.NpcRegistryListener;
+import se.walkercrou.reveries.event.PlayerListener;
+import se.walkercrou.reveries.event.SightListener;
+import se.walkercrou.reveries.jfr.Jfr;
+import se.walkercrou.reveries.jfr.NpcPropertyEvent;
+import se.walkercrou.reveries.jfr.NpcSpawnEvent;
+import se.walkercrou.reveries.metrics.NpcMetrics;
 import se.walkercrou.reveries.property.NpcProperty;
 import se.walkercrou.reveries.property.NpcPropertyRegistryModule;
+import se.walkercrou.reveries.property.PropertyException;
+import se.walkercrou.reveries.sight.SightMode;
+import se.walkercrou.reveries.skin.SkinProfileCache;
 import se.walkercrou.reveries.trait.NpcTrait;
 import se.walkercrou.reveries.trait.NpcTraitRegistryModule;
+import se.walkercrou.reveries.trait.NpcTraitSet;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import javax.inject.Inject;
+import javax.management.JMException;
 
 @Plugin(id = "reveries", authors = { "windy" })
 public final class Reveries {
 
+    public static final String QUOTA_OPTION = "reveries.quota";
+
     public static Reveries INSTANCE;
 
     @Inject public Logger log;
     @Inject public PluginContainer self;
     @Inject public Game game;
+    @Inject @ConfigDir(sharedRoot = false) public Path configDir;
 
     private final CommandRegistrar commands = new CommandRegistrar(this);
-    private final EntityListener entityListener = new EntityListener();
+    private final NpcMetrics metrics = new NpcMetrics(this);
+    private final NpcIndex index = new NpcIndex();
+    private final NpcRegistry registry = new NpcRegistry(this.index);
+    private final NpcSpawnQueue spawns = new NpcSpawnQueue(this);
+    private final Map<String, NpcTemplate> templates = Maps.newHashMap();
+    private final SkinProfileCache skins = new SkinProfileCache(name -> {
+        // a profile found by name has no properties, the skin textures are only there once it is filled
+        GameProfileManager profiles = this.game.getServer().getGameProfileManager();
+        return profiles.get(name).thenCompose(profile -> profiles.fill(profile, true));
+    });
+    private final EntityListener entityListener = new EntityListener(this.registry, this.metrics);
     private final NpcListener npcListener = new NpcListener();
-
-    private final Map<UUID, NpcMonitor> monitors = Maps.newHashMap();
+    private final NpcTickEngine engine = new NpcTickEngine(this);
+    private final PlayerListener playerListener = new PlayerListener(this.engine);
+    private final NpcRegistryListener registryListener = new NpcRegistryListener(this.registry, this.engine);
+    private final SightListener sightListener = new SightListener(this.engine.getOpacity());
 
     @Listener
     public void onPreInit(GamePreInitializationEvent event) {
@@ -72,20 +108,33 @@ public final class Reveries {
 
         this.game.getDataManager().register(
             ReveriesNpcData.class, ImmutableNpcData.class, new NpcDataManipulatorBuilder());
+        this.game.getDataManager().registerContentUpdater(NpcData.class, new NpcDataContentUpdater());
+
+        try {
+            this.index.open(this.configDir.resolve("npcs.idx"));
+        } catch (IOException e) {
+            this.log.error("Could not open the NPC index, NPCs will not be indexed.", e);
+        }
+
+        try {
+            this.skins.load(this.configDir.resolve("skins.dat"));
+        } catch (IOException e) {
+            this.log.error("Could not load the skin profile cache.", e);
+        }
+
+        // registered before any world loads so that NPCs are discovered as their chunks come in
+        this.game.getEventManager().registerListeners(this, this.registryListener);
     }
 
     @Listener
     public void onStart(GameStartedServerEvent event) {
         this.log.info("Starting...");
-
-        for (World world : this.game.getServer().getWorlds()) {
-            for (Entity entity : world.getEntities()) {
-                Optional<NpcData> npcData = entity.get(NpcData.class);
-                if (npcData.isPresent())
-                    System.out.println("NPC : " + npcData);
-            }
+        this.engine.start();
+        try {
+            this.metrics.register();
+        } catch (JMException e) {
+            this.log.warn("Could not publish NPC metrics over JMX.", e);
         }
-
         if (init())
             this.log.info("Started.");
     }
@@ -97,6 +146,8 @@ public final class Reveries {
         EventManager events = this.game.getEventManager();
         events.unregisterListeners(this.entityListener);
         events.unregisterListeners(this.npcListener);
+        events.unregisterListeners(this.playerListener);
+        events.unregisterListeners(this.sightListener);
         if (init())
             this.log.info("Reloaded.");
     }
@@ -105,12 +156,34 @@ public final class Reveries {
         EventManager events = this.game.getEventManager();
         events.registerListeners(this, this.entityListener);
         events.registerListeners(this, this.npcListener);
+        events.registerListeners(this, this.playerListener);
+        events.registerListeners(this, this.sightListener);
+        this.engine.detectSingleEventListeners();
+        this.game.getServer().getOnlinePlayers().forEach(this.engine::addPlayer);
         this.commands.register();
         return true;
     }
 
     @Listener
     public void onStop(GameStoppedEvent event) {
+        this.engine.stop();
+        this.spawns.clear();
+        try {
+            this.metrics.unregister();
+        } catch (JMException e) {
+            this.log.warn("Could not withdraw NPC metrics from JMX.", e);
+        }
+        this.registry.checkpoint();
+        try {
+            this.index.close();
+        } catch (IOException e) {
+            this.log.error("Could not close the NPC index.", e);
+        }
+        try {
+            this.skins.save(this.configDir.resolve("skins.dat"));
+        } catch (IOException e) {
+            this.log.error("Could not save the skin profile cache.", e);
+        }
         this.log.info("Stopped.");
     }
 
@@ -119,37 +192,155 @@ public final class Reveries {
 
         checkNotNull(entityType, "null entity type");
         checkNotNull(location, "null location");
+        UUID ownerId = checkOwner(cause);
+        return spawn(entityType, location, cause, new ReveriesNpcData(
+            ownerId, Messages.DEFAULT_DISPLAY_NAME, 0, 360, SightMode.DISTANCE, new NpcTraitSet(), 0));
+    }
+
+    /**
+     * Spawns a single NPC from a template, owned by the owner of the cause.
+     */
+    public Living spawn(NpcTemplate template, Location<World> location, Cause cause) throws NpcSpawnException {
+        checkNotNull(template, "null template");
+        checkNotNull(location, "null location");
+        UUID ownerId = checkOwner(cause);
+        Living entity = spawn(template.getEntityType(), location, cause,
+            template.getData().asMutable().set(NpcKeys.OWNER_ID, ownerId));
+        for (Map.Entry<NpcProperty, Object> entry : template.getProperties().entrySet()) {
+            NpcPropertyEvent event = Jfr.AVAILABLE ? NpcPropertyEvent.start() : null;
+            boolean changed = false;
+            try {
+                changed = entry.getKey().set(entity, entry.getValue(), null);
+            } catch (PropertyException e) {
+                this.log.warn("Could not apply property " + entry.getKey().getId() + " of template "
+                    + template.getName() + " to " + entity.getUniqueId() + ": " + e.getText().toPlain());
+            }
+            if (event != null)
+                event.end(entity, entry.getKey().getId(), changed);
+        }
+        return entity;
+    }
+
+    /**
+     * Queues an NPC to be spawned from the template at each of the given locations. The spawns are spread over as
+     * many ticks as it takes to keep within the spawn budget of each tick, and the returned future completes on the
+     * main thread with every NPC that was spawned.
+     */
+    public CompletableFuture<List<Living>> spawnBatch(NpcTemplate template, List<Location<World>> locations,
+                                                      Cause cause) {
+        checkNotNull(template, "null template");
+        checkNotNull(locations, "null locations");
         checkNotNull(cause, "null cause");
-        Optional<Identifiable> owner = cause.get(NamedCause.OWNER, Identifiable.class);
-        checkArgument(owner.isPresent(), "cause owner must be identifiable");
+        checkArgument(cause.get(NamedCause.OWNER, Identifiable.class).isPresent(), "cause owner must be identifiable");
+        return this.spawns.submit(template, locations, cause);
+    }
 
+    private Living spawn(EntityType entityType, Location<World> location, Cause cause, NpcData npcData)
+        throws NpcSpawnException {
+
+        if (!Living.class.isAssignableFrom(entityType.getEntityClass()))
+            throw new NpcSpawnException("entity type is not living");
+        NpcSpawnEvent event = Jfr.AVAILABLE ? NpcSpawnEvent.start() : null;
         World world = location.getExtent();
         Living entity = (Living) world.createEntity(entityType, location.getPosition());
-        if (!world.spawnEntity(entity, cause) || !Living.class.isAssignableFrom(entityType.getEntityClass()))
-            throw new NpcSpawnException("could not spawn NPC");
 
-        Text displayName = Messages.DEFAULT_DISPLAY_NAME;
-        entity.offer(new ReveriesNpcData(owner.get().getUniqueId(), displayName, 0, Sets.newHashSet()));
-        if (entity.supports(DisplayNameData.class))
-            entity.offer(entity.getOrCreate(DisplayNameData.class).get().set(Keys.DISPLAY_NAME, displayName));
+        // offered before the entity is in the world so that it is registered with all of its data when it spawns
+        entity.offer(npcData);
+        if (entity.supports(DisplayNameData.class)) {
+            entity.offer(entity.getOrCreate(DisplayNameData.class).get()
+                .set(Keys.DISPLAY_NAME, npcData.displayName().get()));
+        }
+        boolean spawned = world.spawnEntity(entity, cause);
+        if (event != null)
+            event.end(entity.getUniqueId(), world.getUniqueId(), entityType.getId(), spawned);
+        if (!spawned)
+            throw new NpcSpawnException("could not spawn NPC");
 
+        // registers the NPC if the spawn went by without an event
+        this.registry.get(entity);
         return entity;
     }
 
+    private UUID checkOwner(Cause cause) throws NpcSpawnException {
+        checkNotNull(cause, "null cause");
+        Optional<Identifiable> owner = cause.get(NamedCause.OWNER, Identifiable.class);
+        checkArgument(owner.isPresent(), "cause owner must be identifiable");
+        checkQuota(owner.get());
+        return owner.get().getUniqueId();
+    }
+
+    /**
+     * Checks the owner against their NPC quota, which is the numeric {@value #QUOTA_OPTION} permission option. Owners
+     * without the option may own any number of NPCs.
+     */
+    private void checkQuota(Identifiable owner) throws NpcSpawnException {
+        if (!(owner instanceof Subject))
+            return;
+        Optional<String> option = ((Subject) owner).getOption(QUOTA_OPTION);
+        if (!option.isPresent())
+            return;
+        int quota;
+        try {
+            quota = Integer.parseInt(option.get());
+        } catch (NumberFormatException e) {
+            this.log.warn("Invalid " + QUOTA_OPTION + " option: " + option.get());
+            return;
+        }
+        if (this.registry.getOwnedCount(owner.getUniqueId()) >= quota) {
+            throw new NpcSpawnException("NPC quota reached",
+                Messages.QUOTA_REACHED.apply(ImmutableMap.of("quota", Text.of(quota))).build());
+        }
+    }
+
     public boolean isMonitoring(Living living) {
-        return this.monitors.containsKey(living.getUniqueId());
+        return this.engine.isMonitoring(living.getUniqueId());
     }
 
     public void monitor(Living living) {
-        checkArgument(living.get(NpcData.class).isPresent(), "entity is not NPC");
-        checkArgument(!isMonitoring(living), "entity being monitored already");
-        NpcMonitor monitor = new NpcMonitor(this, living);
-        this.monitors.put(living.getUniqueId(), monitor);
-        Sponge.getScheduler().createTaskBuilder()
-            .delayTicks(1)
-            .intervalTicks(1)
-            .execute(monitor)
-            .submit(this);
+        Optional<Npc> npc = this.registry.get(living);
+        checkArgument(npc.isPresent(), "entity is not NPC");
+        this.engine.add(npc.get());
+    }
+
+    /**
+     * Registers a template under its name, which is not case sensitive, replacing any template already registered
+     * under that name.
+     */
+    public void registerTemplate(NpcTemplate template) {
+        checkNotNull(template, "null template");
+        this.templates.put(template.getName().toLowerCase(), template);
+    }
+
+    public Optional<NpcTemplate> getTemplate(String name) {
+        return Optional.ofNullable(this.templates.get(name.toLowerCase()));
+    }
+
+    public Collection<NpcTemplate> getTemplates() {
+        return Collections.unmodifiableCollection(this.templates.values());
+    }
+
+    public NpcRegistry getRegistry() {
+        return this.registry;
+    }
+
+    public NpcIndex getIndex() {
+        return this.index;
+    }
+
+    public SkinProfileCache getSkins() {
+        return this.skins;
+    }
+
+    public NpcTickEngine getEngine() {
+        return this.engine;
+    }
+
+    public NpcMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    public NpcSpawnQueue getSpawnQueue() {
+        return this.spawns;
     }
 
 }
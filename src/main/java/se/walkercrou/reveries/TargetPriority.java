@@ -0,0 +1,24 @@
+package se.walkercrou.reveries;
+
+/**
+ * Which of the nearest visible players an NPC with the head tracking trait looks at. Whatever the priority, only the
+ * few nearest visible players are candidates, and the nearest of them is looked at when the priority names none.
+ */
+public enum TargetPriority {
+
+    /**
+     * The nearest visible player.
+     */
+    NEAREST,
+
+    /**
+     * The owner of the NPC, when they are among the candidates.
+     */
+    OWNER,
+
+    /**
+     * The player that most recently came into sight, when they are among the candidates.
+     */
+    RECENT
+
+}
@@ -0,0 +1,87 @@
+package se.walkercrou.reveries;
+
+import org.spongepowered.api.entity.living.Living;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.event.EventManager;
+import org.spongepowered.api.event.cause.Cause;
+import se.walkercrou.reveries.metrics.NpcMetrics;
+import se.walkercrou.reveries.event.npc.NpcLoseSightOfPlayerEvent;
+import se.walkercrou.reveries.event.npc.NpcSpotPlayerEvent;
+import se.walkercrou.reveries.event.npc.NpcVisibilityChangeEvent;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Collects the visibility transitions found during a tick so they can be posted as a single
+ * {@link NpcVisibilityChangeEvent}. The arrays grow to the largest batch seen and are reused afterwards.
+ */
+final class VisibilityBatch {
+
+    private NpcMonitor[] monitors = new NpcMonitor[64];
+    private Living[] npcs = new Living[64];
+    private Player[] players = new Player[64];
+    private Cause[] causes = new Cause[64];
+    private int[] slots = new int[64];
+    private boolean[] spotted = new boolean[64];
+    private final BitSet cancelled = new BitSet();
+    private int size;
+
+    void add(NpcMonitor monitor, int slot, Player player, Cause cause, boolean spot) {
+        if (this.size == this.monitors.length) {
+            int length = this.size * 2;
+            this.monitors = Arrays.copyOf(this.monitors, length);
+            this.npcs = Arrays.copyOf(this.npcs, length);
+            this.players = Arrays.copyOf(this.players, length);
+            this.causes = Arrays.copyOf(this.causes, length);
+            this.slots = Arrays.copyOf(this.slots, length);
+            this.spotted = Arrays.copyOf(this.spotted, length);
+        }
+        this.monitors[this.size] = monitor;
+        this.npcs[this.size] = monitor.getNpc().getEntity();
+        this.players[this.size] = player;
+        this.causes[this.size] = cause;
+        this.slots[this.size] = slot;
+        this.spotted[this.size] = spot;
+        this.size++;
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Posts the batch, derives the single NPC events if requested and applies every transition that was not
+     * cancelled. Forced batches describe players that are already gone and are applied regardless.
+     */
+    void flush(EventManager events, Cause cause, boolean deriveSingleEvents, boolean forced, NpcMetrics metrics) {
+        if (this.size == 0)
+            return;
+
+        this.cancelled.clear();
+        events.post(new NpcVisibilityChangeEvent(
+            cause, this.size, this.npcs, this.players, this.spotted, this.cancelled, !forced));
+        metrics.recordBatch(this.size, this.cancelled.cardinality());
+
+        for (int i = 0; i < this.size; i++) {
+            if (this.cancelled.get(i))
+                continue;
+            if (deriveSingleEvents) {
+                boolean cancel = events.post(this.spotted[i]
+                    ? new NpcSpotPlayerEvent(this.npcs[i], this.causes[i])
+                    : new NpcLoseSightOfPlayerEvent(this.npcs[i], this.causes[i]));
+                metrics.recordSingleEvent(cancel);
+                if (cancel && !forced)
+                    continue;
+            }
+            this.monitors[i].apply(this.slots[i], this.spotted[i]);
+        }
+
+        Arrays.fill(this.monitors, 0, this.size, null);
+        Arrays.fill(this.npcs, 0, this.size, null);
+        Arrays.fill(this.players, 0, this.size, null);
+        Arrays.fill(this.causes, 0, this.size, null);
+        this.size = 0;
+    }
+
+}
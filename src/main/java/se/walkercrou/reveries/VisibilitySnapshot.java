@@ -0,0 +1,138 @@
+package se.walkercrou.reveries;
+
+import com.flowpowered.math.vector.Vector3d;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Copy of NPC and player positions taken on the main thread, from which worker threads compute the set of players in
+ * range of every NPC. The engine keeps two of these and alternates between them so that one can be filled while the
+ * other is being computed, and all arrays are reused across ticks.
+ */
+final class VisibilitySnapshot {
+
+    private final PlayerGrid grid = new PlayerGrid();
+
+    private NpcMonitor[] monitors = new NpcMonitor[64];
+    private UUID[] npcWorlds = new UUID[64];
+    private double[] npcCoords = new double[64 * 3];
+    private double[] ranges = new double[64];
+    private double[] searchRanges = new double[64];
+    private double[] nearest = new double[64];
+    private BitSet[] results = new BitSet[64];
+    private int npcCount;
+
+    private UUID[] playerWorlds = new UUID[64];
+    private int[] playerSlots = new int[64];
+    private int[] playerGenerations = new int[64];
+    private double[] playerCoords = new double[64 * 3];
+    private int playerCount;
+
+    void clear() {
+        Arrays.fill(this.monitors, 0, this.npcCount, null);
+        Arrays.fill(this.npcWorlds, 0, this.npcCount, null);
+        Arrays.fill(this.playerWorlds, 0, this.playerCount, null);
+        this.npcCount = 0;
+        this.playerCount = 0;
+    }
+
+    void addNpc(NpcMonitor monitor, UUID worldId, Vector3d pos, double range, double searchRange) {
+        int i = this.npcCount;
+        if (i == this.monitors.length) {
+            int length = i * 2;
+            this.monitors = Arrays.copyOf(this.monitors, length);
+            this.npcWorlds = Arrays.copyOf(this.npcWorlds, length);
+            this.npcCoords = Arrays.copyOf(this.npcCoords, length * 3);
+            this.ranges = Arrays.copyOf(this.ranges, length);
+            this.searchRanges = Arrays.copyOf(this.searchRanges, length);
+            this.nearest = Arrays.copyOf(this.nearest, length);
+            this.results = Arrays.copyOf(this.results, length);
+        }
+        this.monitors[i] = monitor;
+        this.npcWorlds[i] = worldId;
+        this.npcCoords[i * 3] = pos.getX();
+        this.npcCoords[i * 3 + 1] = pos.getY();
+        this.npcCoords[i * 3 + 2] = pos.getZ();
+        this.ranges[i] = range;
+        this.searchRanges[i] = searchRange;
+        if (this.results[i] == null)
+            this.results[i] = new BitSet();
+        this.npcCount++;
+    }
+
+    void addPlayer(int slot, int generation, UUID worldId, Vector3d pos) {
+        int i = this.playerCount;
+        if (i == this.playerSlots.length) {
+            int length = i * 2;
+            this.playerWorlds = Arrays.copyOf(this.playerWorlds, length);
+            this.playerSlots = Arrays.copyOf(this.playerSlots, length);
+            this.playerGenerations = Arrays.copyOf(this.playerGenerations, length);
+            this.playerCoords = Arrays.copyOf(this.playerCoords, length * 3);
+        }
+        this.playerWorlds[i] = worldId;
+        this.playerSlots[i] = slot;
+        this.playerGenerations[i] = generation;
+        this.playerCoords[i * 3] = pos.getX();
+        this.playerCoords[i * 3 + 1] = pos.getY();
+        this.playerCoords[i * 3 + 2] = pos.getZ();
+        this.playerCount++;
+    }
+
+    /**
+     * Sets the slots in {@code out} that were released since this snapshot was taken, whether or not they have been
+     * handed to another player since. Results for these slots describe a player that is gone.
+     */
+    void collectReleased(PlayerSlots slots, BitSet out) {
+        for (int i = 0; i < this.playerCount; i++) {
+            int slot = this.playerSlots[i];
+            if (slots.getGeneration(slot) != this.playerGenerations[i])
+                out.set(slot);
+        }
+    }
+
+    int size() {
+        return this.npcCount;
+    }
+
+    NpcMonitor getMonitor(int index) {
+        return this.monitors[index];
+    }
+
+    double getRange(int index) {
+        return this.ranges[index];
+    }
+
+    BitSet getResult(int index) {
+        return this.results[index];
+    }
+
+    double getNearestSquared(int index) {
+        return this.nearest[index];
+    }
+
+    /**
+     * Computes the players in range of every NPC in this snapshot. Must be run inside the worker pool, the parallel
+     * stream then splits the NPCs across that pool's threads.
+     */
+    void compute() {
+        this.grid.clear();
+        for (int i = 0; i < this.playerCount; i++) {
+            int c = i * 3;
+            this.grid.add(this.playerWorlds[i], this.playerSlots[i],
+                this.playerCoords[c], this.playerCoords[c + 1], this.playerCoords[c + 2]);
+        }
+        IntStream.range(0, this.npcCount).parallel().forEach(this::computeNpc);
+    }
+
+    private void computeNpc(int i) {
+        BitSet result = this.results[i];
+        result.clear();
+        int c = i * 3;
+        this.nearest[i] = this.grid.query(this.npcWorlds[i], this.npcCoords[c], this.npcCoords[c + 1],
+            this.npcCoords[c + 2], this.ranges[i], this.searchRanges[i], result);
+    }
+
+}
@@ -4,13 +4,19 @@ import static org.spongepowered.api.command.args.GenericArguments.bool;
 import static org.spongepowered.api.command.args.GenericArguments.catalogedElement;
 import static org.spongepowered.api.command.args.GenericArguments.doubleNum;
 import static org.spongepowered.api.command.args.GenericArguments.entity;
+import static org.spongepowered.api.command.args.GenericArguments.enumValue;
 import static org.spongepowered.api.command.args.GenericArguments.flags;
+import static org.spongepowered.api.command.args.GenericArguments.integer;
 import static org.spongepowered.api.command.args.GenericArguments.location;
+import static org.spongepowered.api.command.args.GenericArguments.none;
 import static org.spongepowered.api.command.args.GenericArguments.onlyOne;
 import static org.spongepowered.api.command.args.GenericArguments.optional;
 import static org.spongepowered.api.command.args.GenericArguments.remainingJoinedStrings;
+import static org.spongepowered.api.command.args.GenericArguments.seq;
 import static org.spongepowered.api.command.args.GenericArguments.string;
+import static org.spongepowered.api.command.args.GenericArguments.user;
 import static org.spongepowered.api.command.args.GenericArguments.vector3d;
+import static org.spongepowered.api.command.args.GenericArguments.world;
 
 import org.spongepowered.api.command.CommandMapping;
 import org.spongepowered.api.command.args.CommandFlags;
@@ -20,7 +26,9 @@ import org.spongepowered.api.text.Text;
 import se.walkercrou.reveries.Reveries;
 import se.walkercrou.reveries.cmd.exe.GeneralCommandExecutors;
 import se.walkercrou.reveries.cmd.exe.PropertyCommandExecutors;
+import se.walkercrou.reveries.cmd.exe.TemplateCommandExecutors;
 import se.walkercrou.reveries.cmd.exe.TraitCommandExecutors;
+import se.walkercrou.reveries.sight.SightMode;
 import se.walkercrou.reveries.trait.NpcTrait;
 
 public final class CommandRegistrar {
@@ -49,7 +57,7 @@ public final class CommandRegistrar {
             .arguments(optional(onlyOne(entity(Text.of("npc")))))
             .build();
 
-        CommandFlags.Builder traitFlags = flags();
+        CommandFlags.Builder traitFlags = selectors(flags());
         for (NpcTrait trait : this.plugin.game.getRegistry().getAllOf(NpcTrait.class))
             traitFlags.valueFlag(bool(Text.of(trait.getId())), "-" + trait.getId());
 
@@ -61,30 +69,75 @@ public final class CommandRegistrar {
         PropertyCommandExecutors props = new PropertyCommandExecutors(this.plugin);
         CommandSpec setProps = CommandSpec.builder()
             .executor(props::updateProperties)
-            .arguments(flags()
+            .arguments(selectors(flags())
                 .valueFlag(string(Text.of("skin")), "-skin")
                 .valueFlag(remainingJoinedStrings(Text.of("displayName")), "-displayName")
                 .valueFlag(vector3d(Text.of("rotation")), "-rotation")
                 .valueFlag(location(Text.of("location")), "-location")
                 .valueFlag(entity(Text.of("riding")), "-riding")
                 .valueFlag(doubleNum(Text.of("sight")), "-sight")
+                .valueFlag(doubleNum(Text.of("viewAngle")), "-viewAngle")
+                .valueFlag(enumValue(Text.of("sightMode"), SightMode.class), "-sightMode")
+                .valueFlag(integer(Text.of("monitorInterval")), "-monitorInterval")
                 .valueFlag(bool(Text.of("nameTag")), "-nameTag")
                 .buildWith(optional(onlyOne(entity(Text.of("npc"))))))
             .build();
 
         CommandSpec clearProps = CommandSpec.builder()
             .executor(props::clearProperties)
-            .arguments(flags()
+            .arguments(selectors(flags())
                 .flag("-skin")
                 .flag("-displayName")
                 .flag("-rotation")
                 .flag("-location")
                 .flag("-riding")
                 .flag("-sight")
+                .flag("-viewAngle")
+                .flag("-sightMode")
+                .flag("-monitorInterval")
                 .flag("-nameTag")
                 .buildWith(optional(onlyOne(entity(Text.of("npc"))))))
             .build();
 
+        CommandSpec list = CommandSpec.builder()
+            .executor(general::listNpcs)
+            .arguments(flags()
+                .valueFlag(integer(Text.of("page")), "-page")
+                .buildWith(optional(onlyOne(user(Text.of("owner"))))))
+            .build();
+
+        CommandSpec find = CommandSpec.builder()
+            .executor(general::findNpcs)
+            .arguments(flags()
+                .valueFlag(user(Text.of("owner")), "-owner")
+                .valueFlag(world(Text.of("world")), "-world")
+                .valueFlag(catalogedElement(Text.of("type"), EntityType.class), "-type")
+                .valueFlag(catalogedElement(Text.of("withTrait"), NpcTrait.class), "-withTrait")
+                .valueFlag(integer(Text.of("page")), "-page")
+                .buildWith(none()))
+            .build();
+
+        TemplateCommandExecutors templates = new TemplateCommandExecutors(this.plugin);
+        CommandSpec saveTemplate = CommandSpec.builder()
+            .executor(templates::saveTemplate)
+            .arguments(onlyOne(string(Text.of("name"))), optional(onlyOne(entity(Text.of("npc")))))
+            .build();
+
+        CommandSpec spawnBatch = CommandSpec.builder()
+            .executor(templates::spawnBatch)
+            .arguments(flags()
+                .valueFlag(doubleNum(Text.of("spacing")), "-spacing")
+                .buildWith(seq(
+                    onlyOne(string(Text.of("template"))),
+                    onlyOne(new IntegerRangeElement(Text.of("amount"), 1, TemplateCommandExecutors.MAX_BATCH)),
+                    optional(onlyOne(location(Text.of("location")))))))
+            .build();
+
+        CommandSpec stats = CommandSpec.builder()
+            .executor(general::showStats)
+            .arguments(flags().flag("-reset").buildWith(none()))
+            .build();
+
         CommandSpec entityId = CommandSpec.builder().executor(general::getTargetedEntityId).build();
 
         CommandSpec root = CommandSpec.builder()
@@ -95,6 +148,11 @@ public final class CommandRegistrar {
             .child(setProps, "prop", "propset")
             .child(clearProps, "propclear")
             .child(entityId, "entityid", "eid", "getid")
+            .child(list, "list", "ls")
+            .child(find, "find", "search")
+            .child(saveTemplate, "template", "savetemplate")
+            .child(spawnBatch, "spawnbatch", "crowd")
+            .child(stats, "stats", "metrics")
             .build();
 
         this.rootMapping = this.plugin.game.getCommandManager()
@@ -102,6 +160,17 @@ public final class CommandRegistrar {
             .orElse(null);
     }
 
+    /**
+     * Flags that select NPCs for a bulk change instead of the single targeted NPC.
+     */
+    private CommandFlags.Builder selectors(CommandFlags.Builder flags) {
+        return flags
+            .valueFlag(doubleNum(Text.of("radius")), "-radius")
+            .valueFlag(user(Text.of("owner")), "-owner")
+            .valueFlag(catalogedElement(Text.of("type"), EntityType.class), "-type")
+            .valueFlag(catalogedElement(Text.of("withTrait"), NpcTrait.class), "-withTrait");
+    }
+
     public void deregister() {
         if (this.rootMapping != null)
             this.plugin.game.getCommandManager().removeMapping(this.rootMapping);
@@ -3,15 +3,30 @@ package se.walkercrou.reveries.cmd;
 import static se.walkercrou.reveries.Messages.MISSING_ENTITY;
 import static se.walkercrou.reveries.Messages.NOT_AN_NPC;
 import static se.walkercrou.reveries.Messages.NO_ENTITY_TARGET;
+import static se.walkercrou.reveries.Messages.NO_NPCS_SELECTED;
+import static se.walkercrou.reveries.Messages.NO_RADIUS_ORIGIN;
+
+import com.flowpowered.math.vector.Vector3d;
 
 import org.spongepowered.api.command.CommandException;
 import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandContext;
 import org.spongepowered.api.entity.Entity;
+import org.spongepowered.api.entity.EntityType;
 import org.spongepowered.api.entity.living.Living;
 import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.entity.living.player.User;
+import org.spongepowered.api.world.Locatable;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
 import org.spongepowered.api.world.extent.EntityUniverse;
+import se.walkercrou.reveries.Npc;
+import se.walkercrou.reveries.NpcRegistry;
+import se.walkercrou.reveries.trait.NpcTrait;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 public final class CommandUtil {
 
@@ -40,4 +55,40 @@ public final class CommandUtil {
         return entity;
     }
 
+    /**
+     * Selects the NPCs matching the radius, owner, type and trait selection flags, or returns nothing if none of them
+     * were given and the command should act on a single targeted NPC instead. The owner, world, type and trait are
+     * looked up in the registry indexes, only the radius is checked against each NPC found.
+     */
+    public static Optional<List<Npc>> selectNpcs(NpcRegistry registry, CommandSource src, CommandContext context)
+        throws CommandException {
+        Optional<Double> radius = context.getOne("radius");
+        Optional<User> owner = context.getOne("owner");
+        Optional<EntityType> type = context.getOne("type");
+        Optional<NpcTrait> trait = context.getOne("withTrait");
+        if (!radius.isPresent() && !owner.isPresent() && !type.isPresent() && !trait.isPresent())
+            return Optional.empty();
+
+        UUID worldId = null;
+        Vector3d center = null;
+        if (radius.isPresent()) {
+            if (!(src instanceof Locatable))
+                throw new CommandException(NO_RADIUS_ORIGIN);
+            Location<World> origin = ((Locatable) src).getLocation();
+            worldId = origin.getExtent().getUniqueId();
+            center = origin.getPosition();
+        }
+
+        List<Npc> npcs = registry.find(
+            owner.map(User::getUniqueId).orElse(null), worldId, type.orElse(null), trait.orElse(null));
+        if (radius.isPresent()) {
+            Vector3d from = center;
+            double radiusSq = radius.get() * radius.get();
+            npcs.removeIf(npc -> npc.getEntity().getLocation().getPosition().distanceSquared(from) > radiusSq);
+        }
+        if (npcs.isEmpty())
+            throw new CommandException(NO_NPCS_SELECTED);
+        return Optional.of(npcs);
+    }
+
 }
@@ -0,0 +1,48 @@
+package se.walkercrou.reveries.cmd;
+
+import com.google.common.collect.ImmutableList;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.ArgumentParseException;
+import org.spongepowered.api.command.args.CommandArgs;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.command.args.CommandElement;
+import org.spongepowered.api.text.Text;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * An integer argument that only accepts values within an inclusive range.
+ */
+final class IntegerRangeElement extends CommandElement {
+
+    private final int min, max;
+
+    IntegerRangeElement(Text key, int min, int max) {
+        super(key);
+        this.min = min;
+        this.max = max;
+    }
+
+    @Nullable
+    @Override
+    protected Object parseValue(CommandSource source, CommandArgs args) throws ArgumentParseException {
+        String input = args.next();
+        int value;
+        try {
+            value = Integer.parseInt(input);
+        } catch (NumberFormatException e) {
+            throw args.createError(Text.of("Expected a number, but got ", input));
+        }
+        if (value < this.min || value > this.max)
+            throw args.createError(Text.of("Expected a number from ", this.min, " to ", this.max, ", but got ", input));
+        return value;
+    }
+
+    @Override
+    public List<String> complete(CommandSource src, CommandArgs args, CommandContext context) {
+        return ImmutableList.of();
+    }
+
+}
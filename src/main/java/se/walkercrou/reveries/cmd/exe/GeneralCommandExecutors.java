@@ -4,12 +4,14 @@ import static se.walkercrou.reveries.Messages.NOT_AN_NPC;
 import static se.walkercrou.reveries.Messages.NO_LOCATION;
 import static se.walkercrou.reveries.Messages.SPAWN_FAILED;
 import static se.walkercrou.reveries.Messages.SPAWN_SUCCESS;
+import static se.walkercrou.reveries.Messages.STATS_RESET;
 import static se.walkercrou.reveries.Messages.VERSION;
 import static se.walkercrou.reveries.Messages.selfInsertingText;
 import static se.walkercrou.reveries.cmd.CommandUtil.getTargetedEntity;
 import static se.walkercrou.reveries.cmd.CommandUtil.getTargetedNpc;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import org.spongepowered.api.command.CommandException;
 import org.spongepowered.api.command.CommandResult;
 import org.spongepowered.api.command.CommandSource;
@@ -19,17 +21,23 @@ import org.spongepowered.api.entity.EntityType;
 import org.spongepowered.api.entity.EntityTypes;
 import org.spongepowered.api.entity.living.Living;
 import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.entity.living.player.User;
 import org.spongepowered.api.event.cause.Cause;
 import org.spongepowered.api.plugin.PluginContainer;
 import org.spongepowered.api.text.Text;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
+import org.spongepowered.api.world.storage.WorldProperties;
 import se.walkercrou.reveries.Messages;
+import se.walkercrou.reveries.Npc;
 import se.walkercrou.reveries.NpcSpawnException;
 import se.walkercrou.reveries.Reveries;
 import se.walkercrou.reveries.data.npc.NpcData;
+import se.walkercrou.reveries.trait.NpcTrait;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 public final class GeneralCommandExecutors {
 
@@ -60,7 +68,7 @@ public final class GeneralCommandExecutors {
             Messages.getNpcInfo(npc, npcData).sendTo(src);
             return CommandResult.success();
         } catch (NpcSpawnException e) {
-            throw new CommandException(SPAWN_FAILED);
+            throw new CommandException(e.getText().orElse(SPAWN_FAILED));
         }
     }
 
@@ -71,6 +79,55 @@ public final class GeneralCommandExecutors {
         return CommandResult.success();
     }
 
+    public CommandResult listNpcs(CommandSource src, CommandContext context) {
+        Optional<User> owner = context.getOne("owner");
+        UUID ownerId = owner.map(User::getUniqueId).orElse(null);
+        List<Npc> npcs = ownerId != null
+            ? this.plugin.getRegistry().find(ownerId, null, null, null)
+            : Lists.newArrayList(this.plugin.getRegistry().getAll());
+        int unloaded = this.plugin.getRegistry().countUnloaded(ownerId, null, null);
+        String command = "/npc list" + owner.map(user -> " " + user.getName()).orElse("");
+        Messages.getNpcList(getListTitle("NPCs", npcs.size(), unloaded), npcs,
+            context.<Integer>getOne("page").orElse(1), command).sendTo(src);
+        return CommandResult.success();
+    }
+
+    public CommandResult findNpcs(CommandSource src, CommandContext context) {
+        Optional<User> owner = context.getOne("owner");
+        Optional<WorldProperties> world = context.getOne("world");
+        Optional<EntityType> type = context.getOne("type");
+        Optional<NpcTrait> trait = context.getOne("withTrait");
+        UUID ownerId = owner.map(User::getUniqueId).orElse(null);
+        UUID worldId = world.map(WorldProperties::getUniqueId).orElse(null);
+        List<Npc> npcs = this.plugin.getRegistry().find(ownerId, worldId, type.orElse(null), trait.orElse(null));
+        // the index does not record entity types
+        int unloaded = type.isPresent() ? 0
+            : this.plugin.getRegistry().countUnloaded(ownerId, worldId, trait.orElse(null));
+
+        String command = "/npc find"
+            + owner.map(user -> " --owner " + user.getName()).orElse("")
+            + world.map(props -> " --world " + props.getWorldName()).orElse("")
+            + type.map(t -> " --type " + t.getId()).orElse("")
+            + trait.map(t -> " --withTrait " + t.getId()).orElse("");
+        Messages.getNpcList(getListTitle("Found NPCs", npcs.size(), unloaded), npcs,
+            context.<Integer>getOne("page").orElse(1), command).sendTo(src);
+        return CommandResult.success();
+    }
+
+    private static Text getListTitle(String title, int loaded, int unloaded) {
+        return unloaded == 0 ? Text.of(title, " (", loaded, ")")
+            : Text.of(title, " (", loaded, ", ", unloaded, " more in unloaded chunks)");
+    }
+
+    public CommandResult showStats(CommandSource src, CommandContext context) {
+        if (context.hasAny("reset")) {
+            this.plugin.getMetrics().reset();
+            src.sendMessage(STATS_RESET);
+        } else
+            Messages.getStats(this.plugin.getMetrics()).sendTo(src);
+        return CommandResult.success();
+    }
+
     public CommandResult getTargetedEntityId(CommandSource src, CommandContext context) throws CommandException {
         Entity entity = getTargetedEntity(src, Optional.empty());
         src.sendMessage(selfInsertingText(Text.of(entity.getUniqueId())));
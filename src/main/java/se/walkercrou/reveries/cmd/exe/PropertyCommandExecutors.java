@@ -7,17 +7,29 @@ import static se.walkercrou.reveries.Messages.UPDATED_PROPS;
 import static se.walkercrou.reveries.cmd.CommandUtil.*;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.spongepowered.api.command.CommandException;
 import org.spongepowered.api.command.CommandResult;
 import org.spongepowered.api.command.CommandSource;
 import org.spongepowered.api.command.args.CommandContext;
 import org.spongepowered.api.entity.living.Living;
 import org.spongepowered.api.text.Text;
+import se.walkercrou.reveries.BulkOperation;
+import se.walkercrou.reveries.Npc;
 import se.walkercrou.reveries.Reveries;
 import se.walkercrou.reveries.data.npc.NpcData;
+import se.walkercrou.reveries.jfr.Jfr;
+import se.walkercrou.reveries.jfr.NpcPropertyEvent;
 import se.walkercrou.reveries.property.NpcProperty;
 import se.walkercrou.reveries.property.PropertyException;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.annotation.Nullable;
+
 public final class PropertyCommandExecutors {
 
     private final Reveries plugin;
@@ -26,46 +38,86 @@ public final class PropertyCommandExecutors {
         this.plugin = plugin;
     }
 
-    @SuppressWarnings("unchecked")
     public CommandResult updateProperties(CommandSource src, CommandContext context) throws CommandException {
-        Living npc = getTargetedNpc(src, context.getOne("npc"));
-        NpcData npcData = npc.get(NpcData.class).orElseThrow(() -> new CommandException(NOT_AN_NPC));
-        int updates = 0;
+        Map<NpcProperty, Object> values = Maps.newLinkedHashMap();
         for (NpcProperty prop : this.plugin.game.getRegistry().getAllOf(NpcProperty.class)) {
             String propId = prop.getId();
             if (context.hasAny(propId)) {
                 Object value = context.getOne(propId).get();
                 if (!prop.supports(value))
                     throw new CommandException(UNSUPPORTED_PROP_TYPE);
-                try {
-                    if (prop.set(npc, value, src))
-                        updates++;
-                } catch (PropertyException e) {
-                    throw new CommandException(e.getText());
-                }
+                values.put(prop, value);
             }
         }
+
+        Optional<List<Npc>> selected = selectNpcs(this.plugin.getRegistry(), src, context);
+        if (selected.isPresent()) {
+            List<Npc> npcs = selected.get();
+            new BulkOperation(this.plugin, src, npcs, npc -> setProperties(npc.getEntity(), values, null) > 0).start();
+            return CommandResult.success();
+        }
+
+        Living npc = getTargetedNpc(src, context.getOne("npc"));
+        NpcData npcData = npc.get(NpcData.class).orElseThrow(() -> new CommandException(NOT_AN_NPC));
+        int updates;
+        try {
+            updates = setProperties(npc, values, src);
+        } catch (PropertyException e) {
+            throw new CommandException(e.getText());
+        }
         src.sendMessage(UPDATED_PROPS, ImmutableMap.of("amount", Text.of(updates)));
         return CommandResult.success();
     }
 
     public CommandResult clearProperties(CommandSource src, CommandContext context) throws CommandException {
+        List<NpcProperty> props = Lists.newArrayList();
+        for (NpcProperty prop : this.plugin.game.getRegistry().getAllOf(NpcProperty.class)) {
+            if (context.hasAny(prop.getId()))
+                props.add(prop);
+        }
+
+        Optional<List<Npc>> selected = selectNpcs(this.plugin.getRegistry(), src, context);
+        if (selected.isPresent()) {
+            List<Npc> npcs = selected.get();
+            new BulkOperation(this.plugin, src, npcs, npc -> clearProperties(npc.getEntity(), props, null) > 0).start();
+            return CommandResult.success();
+        }
+
         Living npc = getTargetedNpc(src, context.getOne("npc"));
         NpcData npcData = npc.get(NpcData.class).orElseThrow(() -> new CommandException(NOT_AN_NPC));
-        int cleared = 0;
-        for (NpcProperty prop : this.plugin.game.getRegistry().getAllOf(NpcProperty.class)) {
-            String propId = prop.getId();
-            if (context.hasAny(propId)) {
-                try {
-                    if (prop.clear(npc, src))
-                        cleared++;
-                } catch (PropertyException e) {
-                    throw new CommandException(e.getText());
-                }
-            }
+        int cleared;
+        try {
+            cleared = clearProperties(npc, props, src);
+        } catch (PropertyException e) {
+            throw new CommandException(e.getText());
         }
         src.sendMessage(CLEARED_PROPS, ImmutableMap.of("amount", Text.of(cleared)));
         return CommandResult.success();
     }
 
+    @SuppressWarnings("unchecked")
+    private int setProperties(Living npc, Map<NpcProperty, Object> values, @Nullable CommandSource src)
+        throws PropertyException {
+        int updates = 0;
+        for (Map.Entry<NpcProperty, Object> entry : values.entrySet()) {
+            NpcPropertyEvent event = Jfr.AVAILABLE ? NpcPropertyEvent.start() : null;
+            boolean changed = entry.getKey().set(npc, entry.getValue(), src);
+            if (event != null)
+                event.end(npc, entry.getKey().getId(), changed);
+            if (changed)
+                updates++;
+        }
+        return updates;
+    }
+
+    private int clearProperties(Living npc, List<NpcProperty> props, @Nullable CommandSource src)
+        throws PropertyException {
+        int cleared = 0;
+        for (NpcProperty prop : props) {
+            if (prop.clear(npc, src))
+                cleared++;
+        }
+        return cleared;
+    }
+
 }
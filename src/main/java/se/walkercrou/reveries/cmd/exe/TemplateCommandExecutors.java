@@ -0,0 +1,90 @@
+package se.walkercrou.reveries.cmd.exe;
+
+import static se.walkercrou.reveries.Messages.BATCH_DONE;
+import static se.walkercrou.reveries.Messages.BATCH_STARTED;
+import static se.walkercrou.reveries.Messages.NOT_AN_NPC;
+import static se.walkercrou.reveries.Messages.NO_LOCATION;
+import static se.walkercrou.reveries.Messages.NO_OWNER;
+import static se.walkercrou.reveries.Messages.TEMPLATE_SAVED;
+import static se.walkercrou.reveries.Messages.UNKNOWN_TEMPLATE;
+import static se.walkercrou.reveries.cmd.CommandUtil.getTargetedNpc;
+
+import com.flowpowered.math.vector.Vector3d;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.spongepowered.api.command.CommandException;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.args.CommandContext;
+import org.spongepowered.api.entity.living.Living;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.event.cause.Cause;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.util.Identifiable;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+import se.walkercrou.reveries.NpcTemplate;
+import se.walkercrou.reveries.Reveries;
+import se.walkercrou.reveries.data.npc.NpcData;
+
+import java.util.List;
+import java.util.Optional;
+
+public final class TemplateCommandExecutors {
+
+    public static final int MAX_BATCH = 1000;
+
+    private static final double DEFAULT_SPACING = 2;
+
+    private final Reveries plugin;
+
+    public TemplateCommandExecutors(Reveries plugin) {
+        this.plugin = plugin;
+    }
+
+    public CommandResult saveTemplate(CommandSource src, CommandContext context) throws CommandException {
+        String name = context.<String>getOne("name").get();
+        Living npc = getTargetedNpc(src, context.getOne("npc"));
+        NpcData npcData = npc.get(NpcData.class).orElseThrow(() -> new CommandException(NOT_AN_NPC));
+        this.plugin.registerTemplate(NpcTemplate.of(name, npc, npcData));
+        src.sendMessage(TEMPLATE_SAVED, ImmutableMap.of("name", Text.of(name)));
+        return CommandResult.success();
+    }
+
+    public CommandResult spawnBatch(CommandSource src, CommandContext context) throws CommandException {
+        String name = context.<String>getOne("template").get();
+        NpcTemplate template = this.plugin.getTemplate(name).orElseThrow(() -> new CommandException(
+            UNKNOWN_TEMPLATE.apply(ImmutableMap.of("name", Text.of(name))).build()));
+        int amount = context.<Integer>getOne("amount").get();
+        double spacing = context.<Double>getOne("spacing").orElse(DEFAULT_SPACING);
+        // the spawned NPCs are owned by the source, which the console cannot be
+        if (!(src instanceof Identifiable))
+            throw new CommandException(NO_OWNER);
+        Optional<Location<World>> loc = context.getOne("location");
+        if (!loc.isPresent() && !(src instanceof Player))
+            throw new CommandException(NO_LOCATION);
+        Location<World> origin = loc.orElseGet(() -> ((Player) src).getLocation());
+
+        List<Location<World>> locations = grid(origin, amount, spacing);
+        src.sendMessage(BATCH_STARTED, ImmutableMap.of("amount", Text.of(locations.size())));
+        this.plugin.spawnBatch(template, locations, Cause.source(this.plugin).owner(src).build())
+            .thenAccept(spawned -> src.sendMessage(BATCH_DONE, ImmutableMap.of(
+                "spawned", Text.of(spawned.size()), "amount", Text.of(locations.size()))));
+        return CommandResult.success();
+    }
+
+    /**
+     * Lays the given amount of locations out in a square grid centered on the origin.
+     */
+    private static List<Location<World>> grid(Location<World> origin, int amount, double spacing) {
+        List<Location<World>> locations = Lists.newArrayListWithCapacity(Math.max(0, amount));
+        int side = (int) Math.ceil(Math.sqrt(amount));
+        double offset = (side - 1) * spacing / 2;
+        for (int i = 0; i < amount; i++) {
+            Vector3d shift = new Vector3d((i % side) * spacing - offset, 0, (i / side) * spacing - offset);
+            locations.add(origin.add(shift));
+        }
+        return locations;
+    }
+
+}
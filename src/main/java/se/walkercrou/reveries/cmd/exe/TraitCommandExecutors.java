@@ -3,21 +3,27 @@ package se.walkercrou.reveries.cmd.exe;
 import static se.walkercrou.reveries.Messages.NOT_AN_NPC;
 import static se.walkercrou.reveries.Messages.UPDATED_TRAITS;
 import static se.walkercrou.reveries.cmd.CommandUtil.getTargetedNpc;
+import static se.walkercrou.reveries.cmd.CommandUtil.selectNpcs;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import org.spongepowered.api.command.CommandException;
 import org.spongepowered.api.command.CommandResult;
 import org.spongepowered.api.command.CommandSource;
 import org.spongepowered.api.command.args.CommandContext;
 import org.spongepowered.api.entity.living.Living;
 import org.spongepowered.api.text.Text;
+import se.walkercrou.reveries.BulkOperation;
+import se.walkercrou.reveries.Npc;
 import se.walkercrou.reveries.Reveries;
 import se.walkercrou.reveries.data.NpcKeys;
 import se.walkercrou.reveries.data.npc.NpcData;
 import se.walkercrou.reveries.trait.NpcTrait;
+import se.walkercrou.reveries.trait.NpcTraitSet;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
 public final class TraitCommandExecutors {
 
@@ -28,23 +34,37 @@ public final class TraitCommandExecutors {
     }
 
     public CommandResult updateTraits(CommandSource src, CommandContext context) throws CommandException {
-        Living npc = getTargetedNpc(src, context.getOne("npc"));
-        NpcData npcData = npc.get(NpcData.class).orElseThrow(() -> new CommandException(NOT_AN_NPC));
-        Set<NpcTrait> npcTraits = npcData.traits().get();
-        int updates = 0;
+        Map<NpcTrait, Boolean> changes = Maps.newLinkedHashMap();
         for (NpcTrait trait : this.plugin.game.getRegistry().getAllOf(NpcTrait.class)) {
             Optional<Boolean> value = context.getOne(trait.getId());
-            if (value.isPresent()) {
-                updates++;
-                if (value.get())
-                    npcTraits.add(trait);
-                else
-                    npcTraits.remove(trait);
-            }
+            if (value.isPresent())
+                changes.put(trait, value.get());
         }
-        npc.offer(npcData.set(NpcKeys.TRAITS, npcTraits));
-        src.sendMessage(UPDATED_TRAITS, ImmutableMap.of("amount", Text.of(updates)));
+
+        Optional<List<Npc>> selected = selectNpcs(this.plugin.getRegistry(), src, context);
+        if (selected.isPresent()) {
+            List<Npc> npcs = selected.get();
+            new BulkOperation(this.plugin, src, npcs, npc -> updateTraits(npc.getEntity(), npc.getData(), changes))
+                .start();
+            return CommandResult.success();
+        }
+
+        Living npc = getTargetedNpc(src, context.getOne("npc"));
+        NpcData npcData = npc.get(NpcData.class).orElseThrow(() -> new CommandException(NOT_AN_NPC));
+        updateTraits(npc, npcData, changes);
+        src.sendMessage(UPDATED_TRAITS, ImmutableMap.of("amount", Text.of(changes.size())));
         return CommandResult.success();
     }
 
+    private boolean updateTraits(Living npc, NpcData npcData, Map<NpcTrait, Boolean> changes) {
+        NpcTraitSet npcTraits = NpcTraitSet.copyOf(npcData.traits().get());
+        for (Map.Entry<NpcTrait, Boolean> change : changes.entrySet()) {
+            if (change.getValue())
+                npcTraits.add(change.getKey());
+            else
+                npcTraits.remove(change.getKey());
+        }
+        return this.plugin.getRegistry().offer(npc, npcData.set(NpcKeys.TRAITS, npcTraits)).isSuccessful();
+    }
+
 }
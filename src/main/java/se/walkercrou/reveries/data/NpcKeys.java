@@ -8,6 +8,7 @@ import org.spongepowered.api.data.key.Key;
 import org.spongepowered.api.data.value.mutable.SetValue;
 import org.spongepowered.api.data.value.mutable.Value;
 import org.spongepowered.api.text.Text;
+import se.walkercrou.reveries.sight.SightMode;
 import se.walkercrou.reveries.trait.NpcTrait;
 
 import java.util.Set;
@@ -28,6 +29,16 @@ public final class NpcKeys {
         new TypeToken<Value<Double>>() {}, DataQuery.of("SightRange"), "reveries:sight_range",
         "Sight Range");
 
+    public static final Key<Value<Double>> VIEW_ANGLE = makeSingleKey(TypeToken.of(Double.class),
+        new TypeToken<Value<Double>>() {}, DataQuery.of("ViewAngle"), "reveries:view_angle", "View Angle");
+
+    public static final Key<Value<Integer>> MONITOR_INTERVAL = makeSingleKey(TypeToken.of(Integer.class),
+        new TypeToken<Value<Integer>>() {}, DataQuery.of("MonitorInterval"), "reveries:monitor_interval",
+        "Monitor Interval");
+
+    public static final Key<Value<SightMode>> SIGHT_MODE = makeSingleKey(TypeToken.of(SightMode.class),
+        new TypeToken<Value<SightMode>>() {}, DataQuery.of("SightMode"), "reveries:sight_mode", "Sight Mode");
+
     private NpcKeys() {}
 
 }
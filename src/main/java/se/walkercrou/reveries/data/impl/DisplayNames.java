@@ -0,0 +1,26 @@
+package se.walkercrou.reveries.data.impl;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.spongepowered.api.text.Text;
+
+import javax.annotation.Nullable;
+
+/**
+ * Pool of display names shared between NPC data. Most NPCs are called one of a handful of names, which are otherwise
+ * deserialized into a separate {@link Text} tree for every NPC. Names no NPC is called anymore are collected.
+ */
+final class DisplayNames {
+
+    private static final Interner<Text> INTERNER = Interners.newWeakInterner();
+    // -Dreveries.intern=false keeps every NPC's own name, to measure what sharing saves
+    private static final boolean SHARED = Boolean.parseBoolean(System.getProperty("reveries.intern", "true"));
+
+    private DisplayNames() {}
+
+    @Nullable
+    static Text intern(@Nullable Text displayName) {
+        return displayName == null || !SHARED ? displayName : INTERNER.intern(displayName);
+    }
+
+}
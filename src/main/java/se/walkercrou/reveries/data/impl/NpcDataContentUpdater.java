@@ -0,0 +1,71 @@
+package se.walkercrou.reveries.data.impl;
+
+import static se.walkercrou.reveries.data.impl.NpcDataSerialization.DISPLAY_NAME;
+import static se.walkercrou.reveries.data.impl.NpcDataSerialization.MONITOR_INTERVAL;
+import static se.walkercrou.reveries.data.impl.NpcDataSerialization.SIGHT_MODE;
+import static se.walkercrou.reveries.data.impl.NpcDataSerialization.TRAITS;
+import static se.walkercrou.reveries.data.impl.NpcDataSerialization.VIEW_ANGLE;
+
+import org.spongepowered.api.data.DataView;
+import org.spongepowered.api.data.Queries;
+import org.spongepowered.api.data.persistence.DataContentUpdater;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.serializer.TextSerializers;
+import se.walkercrou.reveries.Reveries;
+import se.walkercrou.reveries.sight.SightMode;
+import se.walkercrou.reveries.trait.NpcTrait;
+import se.walkercrou.reveries.trait.NpcTraitSet;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Converts version 1 NPC data, which stored traits as a list of catalog ids and the display name as a full text tree,
+ * to the compact version 2 format.
+ */
+public final class NpcDataContentUpdater implements DataContentUpdater {
+
+    @Override
+    public int getInputVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getOutputVersion() {
+        return 2;
+    }
+
+    @Override
+    public DataView update(DataView content) {
+        Text displayName = content.getSerializable(DISPLAY_NAME, Text.class).orElse(Text.EMPTY);
+        List<NpcTrait> traits = content.getCatalogTypeList(TRAITS, NpcTrait.class).orElse(Collections.emptyList());
+        SightMode sightMode = content.getString(SIGHT_MODE)
+            .map(NpcDataContentUpdater::readSightMode)
+            .orElse(SightMode.DISTANCE);
+
+        content.remove(DISPLAY_NAME);
+        content.remove(TRAITS);
+        content.remove(SIGHT_MODE);
+        content.set(DISPLAY_NAME, TextSerializers.LEGACY_FORMATTING_CODE.serialize(displayName));
+        NpcDataSerialization.writeTraits(content, NpcTraitSet.copyOf(traits));
+        content.set(SIGHT_MODE, sightMode.ordinal());
+        if (!content.contains(VIEW_ANGLE))
+            content.set(VIEW_ANGLE, 360.0);
+        if (!content.contains(MONITOR_INTERVAL))
+            content.set(MONITOR_INTERVAL, 0);
+        content.set(Queries.CONTENT_VERSION, getOutputVersion());
+        return content;
+    }
+
+    private static SightMode readSightMode(String name) {
+        try {
+            return SightMode.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            // a mode that was renamed or removed should not cost the NPC the rest of its data
+            Reveries.INSTANCE.log.warn("Unknown NPC sight mode '{}', using {} instead.", name, SightMode.DISTANCE);
+            return SightMode.DISTANCE;
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package se.walkercrou.reveries.data.impl;
+
+import com.google.common.collect.Lists;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.data.DataQuery;
+import org.spongepowered.api.data.DataView;
+import org.spongepowered.api.data.Queries;
+import org.spongepowered.api.data.persistence.DataContentUpdater;
+import org.spongepowered.api.data.persistence.InvalidDataException;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.serializer.TextSerializers;
+import se.walkercrou.reveries.data.npc.NpcData;
+import se.walkercrou.reveries.sight.SightMode;
+import se.walkercrou.reveries.trait.NpcTrait;
+import se.walkercrou.reveries.trait.NpcTraitRegistryModule;
+import se.walkercrou.reveries.trait.NpcTraitSet;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The current NPC data format. Default traits are stored as a single bitmask with only the ids of additional traits
+ * listed, the display name as a legacy formatted string and sight settings as plain numbers.
+ */
+final class NpcDataSerialization {
+
+    static final DataQuery OWNER_ID = DataQuery.of("OwnerId");
+    static final DataQuery DISPLAY_NAME = DataQuery.of("DisplayName");
+    static final DataQuery SIGHT_RANGE = DataQuery.of("SightRange");
+    static final DataQuery VIEW_ANGLE = DataQuery.of("ViewAngle");
+    static final DataQuery SIGHT_MODE = DataQuery.of("SightMode");
+    static final DataQuery TRAITS = DataQuery.of("Traits");
+    static final DataQuery TRAIT_MASK = DataQuery.of("TraitMask");
+    static final DataQuery TRAIT_IDS = DataQuery.of("TraitIds");
+    static final DataQuery MONITOR_INTERVAL = DataQuery.of("MonitorInterval");
+
+    private NpcDataSerialization() {}
+
+    static DataContainer write(DataContainer container, UUID ownerId, Text displayName, double sightRange,
+                               double viewAngle, SightMode sightMode, NpcTraitSet traits, int monitorInterval) {
+        container
+            .set(OWNER_ID, ownerId)
+            .set(DISPLAY_NAME, TextSerializers.LEGACY_FORMATTING_CODE.serialize(displayName))
+            .set(SIGHT_RANGE, sightRange)
+            .set(VIEW_ANGLE, viewAngle)
+            .set(SIGHT_MODE, sightMode.ordinal())
+            .set(MONITOR_INTERVAL, monitorInterval);
+        writeTraits(container, traits);
+        return container;
+    }
+
+    static void writeTraits(DataView view, NpcTraitSet traits) {
+        long defaults = NpcTraitRegistryModule.getDefaultMask();
+        view.set(TRAIT_MASK, traits.getMask() & defaults);
+        if ((traits.getMask() & ~defaults) != 0 || traits.hasOverflow()) {
+            List<String> ids = Lists.newArrayList();
+            for (NpcTrait trait : traits) {
+                if (trait.getOrdinal() >= 64 || (defaults & 1L << trait.getOrdinal()) == 0)
+                    ids.add(trait.getId());
+            }
+            view.set(TRAIT_IDS, ids);
+        }
+    }
+
+    /**
+     * Brings data saved by an older version of the plugin up to date through the registered content updaters. Data
+     * is only ever upgraded like this as it is loaded.
+     *
+     * @throws InvalidDataException if no updater brings the data's version up to date
+     */
+    static DataView upgrade(DataView view) {
+        int version = view.getInt(Queries.CONTENT_VERSION).orElse(1);
+        if (version >= ReveriesNpcData.CONTENT_VERSION)
+            return view;
+        Optional<DataContentUpdater> updater = Sponge.getDataManager()
+            .getWrappedContentUpdater(NpcData.class, version, ReveriesNpcData.CONTENT_VERSION);
+        if (!updater.isPresent())
+            throw new InvalidDataException("No content updater for NPC data version " + version);
+        return updater.get().update(view);
+    }
+
+    static Text readDisplayName(DataView view) {
+        return TextSerializers.LEGACY_FORMATTING_CODE.deserialize(view.getString(DISPLAY_NAME).orElse(""));
+    }
+
+    static SightMode readSightMode(DataView view) {
+        SightMode[] modes = SightMode.values();
+        int ordinal = view.getInt(SIGHT_MODE).orElse(0);
+        return ordinal >= 0 && ordinal < modes.length ? modes[ordinal] : SightMode.DISTANCE;
+    }
+
+    static NpcTraitSet readTraits(DataView view) {
+        NpcTraitSet traits = new NpcTraitSet(
+            view.getLong(TRAIT_MASK).orElse(0L) & NpcTraitRegistryModule.getDefaultMask());
+        Optional<List<String>> ids = view.getStringList(TRAIT_IDS);
+        if (ids.isPresent()) {
+            // traits of plugins that are no longer installed are dropped
+            for (String id : ids.get())
+                Sponge.getRegistry().getType(NpcTrait.class, id).ifPresent(traits::add);
+        }
+        return traits;
+    }
+
+}
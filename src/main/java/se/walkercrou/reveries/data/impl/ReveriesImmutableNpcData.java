@@ -9,7 +9,9 @@ import org.spongepowered.api.text.Text;
 import se.walkercrou.reveries.data.NpcKeys;
 import se.walkercrou.reveries.data.npc.ImmutableNpcData;
 import se.walkercrou.reveries.data.npc.NpcData;
+import se.walkercrou.reveries.sight.SightMode;
 import se.walkercrou.reveries.trait.NpcTrait;
+import se.walkercrou.reveries.trait.NpcTraitSet;
 
 import java.util.Set;
 import java.util.UUID;
@@ -19,13 +21,20 @@ public final class ReveriesImmutableNpcData extends AbstractImmutableData<Immuta
     private final UUID ownerId;
     private final Text displayName;
     private final double sightRange;
-    private final Set<NpcTrait> traits;
+    private final double viewAngle;
+    private final SightMode sightMode;
+    private final NpcTraitSet traits;
+    private final int monitorInterval;
 
-    public ReveriesImmutableNpcData(UUID ownerId, Text displayName, double sightRange, Set<NpcTrait> traits) {
+    public ReveriesImmutableNpcData(UUID ownerId, Text displayName, double sightRange, double viewAngle,
+                                    SightMode sightMode, Set<NpcTrait> traits, int monitorInterval) {
         this.ownerId = ownerId;
-        this.displayName = displayName;
+        this.displayName = DisplayNames.intern(displayName);
         this.sightRange = sightRange;
-        this.traits = traits;
+        this.viewAngle = viewAngle;
+        this.sightMode = sightMode;
+        this.traits = NpcTraitSet.intern(traits);
+        this.monitorInterval = monitorInterval;
         registerGetters();
     }
 
@@ -44,11 +53,50 @@ public final class ReveriesImmutableNpcData extends AbstractImmutableData<Immuta
         return Sponge.getRegistry().getValueFactory().createValue(NpcKeys.SIGHT_RANGE, this.sightRange).asImmutable();
     }
 
+    @Override
+    public ImmutableValue<Double> viewAngle() {
+        return Sponge.getRegistry().getValueFactory().createValue(NpcKeys.VIEW_ANGLE, this.viewAngle).asImmutable();
+    }
+
+    @Override
+    public ImmutableValue<SightMode> sightMode() {
+        return Sponge.getRegistry().getValueFactory().createValue(NpcKeys.SIGHT_MODE, this.sightMode).asImmutable();
+    }
+
     @Override
     public ImmutableSetValue<NpcTrait> traits() {
         return Sponge.getRegistry().getValueFactory().createSetValue(NpcKeys.TRAITS, this.traits).asImmutable();
     }
 
+    @Override
+    public ImmutableValue<Integer> monitorInterval() {
+        return Sponge.getRegistry().getValueFactory()
+            .createValue(NpcKeys.MONITOR_INTERVAL, this.monitorInterval).asImmutable();
+    }
+
+    public double getViewAngle() {
+        return this.viewAngle;
+    }
+
+    public SightMode getSightMode() {
+        return this.sightMode;
+    }
+
+    public int getMonitorInterval() {
+        return this.monitorInterval;
+    }
+
+    public boolean hasTrait(NpcTrait trait) {
+        return this.traits.contains(trait);
+    }
+
+    /**
+     * Returns the traits of this data, which are shared with other data and cannot be changed.
+     */
+    public NpcTraitSet getTraits() {
+        return this.traits;
+    }
+
     @Override
     protected void registerGetters() {
         registerFieldGetter(NpcKeys.OWNER_ID, () -> this.ownerId);
@@ -60,13 +108,24 @@ public final class ReveriesImmutableNpcData extends AbstractImmutableData<Immuta
         registerFieldGetter(NpcKeys.SIGHT_RANGE, () -> this.sightRange);
         registerKeyValue(NpcKeys.SIGHT_RANGE, this::sightRange);
 
+        registerFieldGetter(NpcKeys.VIEW_ANGLE, () -> this.viewAngle);
+        registerKeyValue(NpcKeys.VIEW_ANGLE, this::viewAngle);
+
+        registerFieldGetter(NpcKeys.SIGHT_MODE, () -> this.sightMode);
+        registerKeyValue(NpcKeys.SIGHT_MODE, this::sightMode);
+
         registerFieldGetter(NpcKeys.TRAITS, () -> this.traits);
         registerKeyValue(NpcKeys.TRAITS, this::traits);
+
+        registerFieldGetter(NpcKeys.MONITOR_INTERVAL, () -> this.monitorInterval);
+        registerKeyValue(NpcKeys.MONITOR_INTERVAL, this::monitorInterval);
     }
 
     @Override
     public ReveriesNpcData asMutable() {
-        return new ReveriesNpcData(this.ownerId, this.displayName, this.sightRange, this.traits);
+        return new ReveriesNpcData(
+            this.ownerId, this.displayName, this.sightRange, this.viewAngle, this.sightMode, this.traits,
+            this.monitorInterval);
     }
 
     @Override
@@ -76,11 +135,8 @@ public final class ReveriesImmutableNpcData extends AbstractImmutableData<Immuta
 
     @Override
     public DataContainer toContainer() {
-        return super.toContainer()
-            .set(NpcKeys.OWNER_ID, this.ownerId)
-            .set(NpcKeys.DISPLAY_NAME, this.displayName)
-            .set(NpcKeys.SIGHT_RANGE, this.sightRange)
-            .set(NpcKeys.TRAITS, this.traits);
+        return NpcDataSerialization.write(super.toContainer(), this.ownerId, this.displayName, this.sightRange,
+            this.viewAngle, this.sightMode, this.traits, this.monitorInterval);
     }
 
 }
@@ -1,9 +1,9 @@
 package se.walkercrou.reveries.data.impl;
 
-import com.google.common.collect.Sets;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.data.DataContainer;
 import org.spongepowered.api.data.DataHolder;
+import org.spongepowered.api.data.DataView;
 import org.spongepowered.api.data.manipulator.mutable.common.AbstractData;
 import org.spongepowered.api.data.merge.MergeFunction;
 import org.spongepowered.api.data.value.mutable.SetValue;
@@ -12,7 +12,9 @@ import org.spongepowered.api.text.Text;
 import se.walkercrou.reveries.data.npc.ImmutableNpcData;
 import se.walkercrou.reveries.data.npc.NpcData;
 import se.walkercrou.reveries.data.NpcKeys;
+import se.walkercrou.reveries.sight.SightMode;
 import se.walkercrou.reveries.trait.NpcTrait;
+import se.walkercrou.reveries.trait.NpcTraitSet;
 
 import java.util.Optional;
 import java.util.Set;
@@ -20,23 +22,30 @@ import java.util.UUID;
 
 public final class ReveriesNpcData extends AbstractData<NpcData, ImmutableNpcData> implements NpcData {
 
-    public static final int CONTENT_VERSION = 1;
+    public static final int CONTENT_VERSION = 2;
 
     private UUID ownerId;
     private Text displayName;
     private double sightRange;
-    private Set<NpcTrait> traits;
+    private double viewAngle;
+    private SightMode sightMode;
+    private NpcTraitSet traits;
+    private int monitorInterval;
 
-    public ReveriesNpcData(UUID ownerId, Text displayName, double sightRange, Set<NpcTrait> traits) {
+    public ReveriesNpcData(UUID ownerId, Text displayName, double sightRange, double viewAngle,
+                           SightMode sightMode, Set<NpcTrait> traits, int monitorInterval) {
         this.ownerId = ownerId;
-        this.displayName = displayName;
+        this.displayName = DisplayNames.intern(displayName);
         this.sightRange = sightRange;
-        this.traits = traits;
+        this.viewAngle = viewAngle;
+        this.sightMode = sightMode;
+        this.traits = NpcTraitSet.intern(traits);
+        this.monitorInterval = monitorInterval;
         registerGettersAndSetters();
     }
 
     public ReveriesNpcData() {
-        this(null, null, 0, Sets.newHashSet());
+        this(null, null, 0, 360, SightMode.DISTANCE, new NpcTraitSet(), 0);
     }
 
     @Override
@@ -54,9 +63,60 @@ public final class ReveriesNpcData extends AbstractData<NpcData, ImmutableNpcDat
         return Sponge.getRegistry().getValueFactory().createValue(NpcKeys.SIGHT_RANGE, this.sightRange);
     }
 
+    @Override
+    public Value<Double> viewAngle() {
+        return Sponge.getRegistry().getValueFactory().createValue(NpcKeys.VIEW_ANGLE, this.viewAngle);
+    }
+
+    @Override
+    public Value<SightMode> sightMode() {
+        return Sponge.getRegistry().getValueFactory().createValue(NpcKeys.SIGHT_MODE, this.sightMode);
+    }
+
     @Override
     public SetValue<NpcTrait> traits() {
-        return Sponge.getRegistry().getValueFactory().createSetValue(NpcKeys.TRAITS, this.traits);
+        // the value may be changed in place, so it gets its own copy of the shared set
+        return Sponge.getRegistry().getValueFactory().createSetValue(NpcKeys.TRAITS, this.traits.copy());
+    }
+
+    @Override
+    public Value<Integer> monitorInterval() {
+        return Sponge.getRegistry().getValueFactory().createValue(NpcKeys.MONITOR_INTERVAL, this.monitorInterval);
+    }
+
+    public UUID getOwnerId() {
+        return this.ownerId;
+    }
+
+    public Text getDisplayName() {
+        return this.displayName;
+    }
+
+    public double getSightRange() {
+        return this.sightRange;
+    }
+
+    public double getViewAngle() {
+        return this.viewAngle;
+    }
+
+    public SightMode getSightMode() {
+        return this.sightMode;
+    }
+
+    public int getMonitorInterval() {
+        return this.monitorInterval;
+    }
+
+    public boolean hasTrait(NpcTrait trait) {
+        return this.traits.contains(trait);
+    }
+
+    /**
+     * Returns the traits of this data, which are shared with other data and cannot be changed.
+     */
+    public NpcTraitSet getTraits() {
+        return this.traits;
     }
 
     @Override
@@ -66,16 +126,28 @@ public final class ReveriesNpcData extends AbstractData<NpcData, ImmutableNpcDat
         registerKeyValue(NpcKeys.OWNER_ID, this::ownerId);
 
         registerFieldGetter(NpcKeys.DISPLAY_NAME, () -> this.displayName);
-        registerFieldSetter(NpcKeys.DISPLAY_NAME, value -> this.displayName = value);
+        registerFieldSetter(NpcKeys.DISPLAY_NAME, value -> this.displayName = DisplayNames.intern(value));
         registerKeyValue(NpcKeys.DISPLAY_NAME, this::displayName);
 
         registerFieldGetter(NpcKeys.SIGHT_RANGE, () -> this.sightRange);
         registerFieldSetter(NpcKeys.SIGHT_RANGE, value -> this.sightRange = value);
         registerKeyValue(NpcKeys.SIGHT_RANGE, this::sightRange);
 
-        registerFieldGetter(NpcKeys.TRAITS, () -> this.traits);
-        registerFieldSetter(NpcKeys.TRAITS, value -> this.traits = value);
+        registerFieldGetter(NpcKeys.VIEW_ANGLE, () -> this.viewAngle);
+        registerFieldSetter(NpcKeys.VIEW_ANGLE, value -> this.viewAngle = value);
+        registerKeyValue(NpcKeys.VIEW_ANGLE, this::viewAngle);
+
+        registerFieldGetter(NpcKeys.SIGHT_MODE, () -> this.sightMode);
+        registerFieldSetter(NpcKeys.SIGHT_MODE, value -> this.sightMode = value);
+        registerKeyValue(NpcKeys.SIGHT_MODE, this::sightMode);
+
+        registerFieldGetter(NpcKeys.TRAITS, () -> this.traits.copy());
+        registerFieldSetter(NpcKeys.TRAITS, value -> this.traits = NpcTraitSet.intern(value));
         registerKeyValue(NpcKeys.TRAITS, this::traits);
+
+        registerFieldGetter(NpcKeys.MONITOR_INTERVAL, () -> this.monitorInterval);
+        registerFieldSetter(NpcKeys.MONITOR_INTERVAL, value -> this.monitorInterval = value);
+        registerKeyValue(NpcKeys.MONITOR_INTERVAL, this::monitorInterval);
     }
 
     @Override
@@ -85,23 +157,35 @@ public final class ReveriesNpcData extends AbstractData<NpcData, ImmutableNpcDat
 
     @Override
     public Optional<NpcData> from(DataContainer container) {
-        if (!container.contains(NpcKeys.OWNER_ID, NpcKeys.DISPLAY_NAME, NpcKeys.TRAITS))
+        return read(container);
+    }
+
+    Optional<NpcData> read(DataView container) {
+        DataView view = NpcDataSerialization.upgrade(container);
+        if (!view.contains(NpcDataSerialization.OWNER_ID, NpcDataSerialization.DISPLAY_NAME))
             return Optional.empty();
-        this.ownerId = container.getObject(NpcKeys.OWNER_ID.getQuery(), UUID.class).get();
-        this.displayName = container.getObject(NpcKeys.DISPLAY_NAME.getQuery(), Text.class).get();
-        this.sightRange = container.getDouble(NpcKeys.SIGHT_RANGE.getQuery()).get();
-        this.traits = Sets.newHashSet(container.getObjectList(NpcKeys.TRAITS.getQuery(), NpcTrait.class).get());
+        this.ownerId = view.getObject(NpcDataSerialization.OWNER_ID, UUID.class).get();
+        this.displayName = DisplayNames.intern(NpcDataSerialization.readDisplayName(view));
+        this.sightRange = view.getDouble(NpcDataSerialization.SIGHT_RANGE).orElse(0.0);
+        this.viewAngle = view.getDouble(NpcDataSerialization.VIEW_ANGLE).orElse(360.0);
+        this.sightMode = NpcDataSerialization.readSightMode(view);
+        this.traits = NpcTraitSet.intern(NpcDataSerialization.readTraits(view));
+        this.monitorInterval = view.getInt(NpcDataSerialization.MONITOR_INTERVAL).orElse(0);
         return Optional.of(this);
     }
 
     @Override
     public ReveriesNpcData copy() {
-        return new ReveriesNpcData(this.ownerId, this.displayName, this.sightRange, this.traits);
+        return new ReveriesNpcData(
+            this.ownerId, this.displayName, this.sightRange, this.viewAngle, this.sightMode, this.traits,
+            this.monitorInterval);
     }
 
     @Override
     public ReveriesImmutableNpcData asImmutable() {
-        return new ReveriesImmutableNpcData(this.ownerId, this.displayName, this.sightRange, this.traits);
+        return new ReveriesImmutableNpcData(
+            this.ownerId, this.displayName, this.sightRange, this.viewAngle, this.sightMode, this.traits,
+            this.monitorInterval);
     }
 
     @Override
@@ -111,11 +195,8 @@ public final class ReveriesNpcData extends AbstractData<NpcData, ImmutableNpcDat
 
     @Override
     public DataContainer toContainer() {
-        return super.toContainer()
-            .set(NpcKeys.OWNER_ID, this.ownerId)
-            .set(NpcKeys.DISPLAY_NAME, this.displayName)
-            .set(NpcKeys.SIGHT_RANGE, this.sightRange)
-            .set(NpcKeys.TRAITS, this.traits);
+        return NpcDataSerialization.write(super.toContainer(), this.ownerId, this.displayName, this.sightRange,
+            this.viewAngle, this.sightMode, this.traits, this.monitorInterval);
     }
 
 }
@@ -4,6 +4,7 @@ import org.spongepowered.api.data.manipulator.ImmutableDataManipulator;
 import org.spongepowered.api.data.value.immutable.ImmutableSetValue;
 import org.spongepowered.api.data.value.immutable.ImmutableValue;
 import org.spongepowered.api.text.Text;
+import se.walkercrou.reveries.sight.SightMode;
 import se.walkercrou.reveries.trait.NpcTrait;
 
 import java.util.UUID;
@@ -16,6 +17,12 @@ public interface ImmutableNpcData extends ImmutableDataManipulator<ImmutableNpcD
 
     ImmutableValue<Double> sightRange();
 
+    ImmutableValue<Double> viewAngle();
+
+    ImmutableValue<SightMode> sightMode();
+
     ImmutableSetValue<NpcTrait> traits();
 
+    ImmutableValue<Integer> monitorInterval();
+
 }
@@ -4,6 +4,7 @@ import org.spongepowered.api.data.manipulator.DataManipulator;
 import org.spongepowered.api.data.value.mutable.SetValue;
 import org.spongepowered.api.data.value.mutable.Value;
 import org.spongepowered.api.text.Text;
+import se.walkercrou.reveries.sight.SightMode;
 import se.walkercrou.reveries.trait.NpcTrait;
 
 import java.util.UUID;
@@ -16,6 +17,12 @@ public interface NpcData extends DataManipulator<NpcData, ImmutableNpcData> {
 
     Value<Double> sightRange();
 
+    Value<Double> viewAngle();
+
+    Value<SightMode> sightMode();
+
     SetValue<NpcTrait> traits();
 
+    Value<Integer> monitorInterval();
+
 }
@@ -8,39 +8,58 @@ import org.spongepowered.api.event.entity.DamageEntityEvent;
 import org.spongepowered.api.event.entity.IgniteEntityEvent;
 import org.spongepowered.api.event.entity.MoveEntityEvent;
 import org.spongepowered.api.event.filter.Getter;
-import se.walkercrou.reveries.data.npc.NpcData;
+import se.walkercrou.reveries.Npc;
+import se.walkercrou.reveries.NpcRegistry;
+import se.walkercrou.reveries.jfr.EntityListenerEvent;
+import se.walkercrou.reveries.jfr.Jfr;
+import se.walkercrou.reveries.metrics.NpcMetrics;
 import se.walkercrou.reveries.trait.NpcTrait;
 import se.walkercrou.reveries.trait.NpcTraits;
 
 import java.util.List;
+import java.util.Optional;
 
 public final class EntityListener {
 
+    private final NpcRegistry registry;
+    private final NpcMetrics metrics;
+
+    public EntityListener(NpcRegistry registry, NpcMetrics metrics) {
+        this.registry = registry;
+        this.metrics = metrics;
+    }
+
     @Listener
     public void onNpcDamage(DamageEntityEvent event, @Getter("getTargetEntity") Entity entity) {
-        checkTrait(event, entity, NpcTraits.INVULNERABLE);
+        checkTrait("damage", event, entity, NpcTraits.INVULNERABLE);
     }
 
     @Listener
     public void onNpcMove(MoveEntityEvent event, @Getter("getTargetEntity") Entity entity) {
-        checkTrait(event, entity, NpcTraits.IMMOBILE);
+        checkTrait("move", event, entity, NpcTraits.IMMOBILE);
     }
 
     @Listener
     public void onNpcCollide(CollideEntityEvent event, @Getter("getEntities") List<Entity> entities) {
-        entities.forEach(e -> checkTrait(event, e, NpcTraits.NO_COLLIDE));
+        for (Entity entity : entities)
+            checkTrait("collide", event, entity, NpcTraits.NO_COLLIDE);
     }
 
     @Listener
     public void onNpcIgnite(IgniteEntityEvent event, @Getter("getTargetEntity") Entity entity) {
-        checkTrait(event, entity, NpcTraits.NO_FIRE);
+        checkTrait("ignite", event, entity, NpcTraits.NO_FIRE);
     }
 
-    private void checkTrait(Cancellable event, Entity entity, NpcTrait trait) {
-        entity.get(NpcData.class).ifPresent(npcData -> {
-            if (npcData.traits().get().contains(trait))
-                event.setCancelled(true);
-        });
+    private void checkTrait(String handler, Cancellable event, Entity entity, NpcTrait trait) {
+        EntityListenerEvent flight = Jfr.AVAILABLE && EntityListenerEvent.isRecorded()
+            ? EntityListenerEvent.start() : null;
+        Optional<Npc> npc = this.registry.get(entity.getUniqueId());
+        boolean cancel = npc.isPresent() && npc.get().hasTrait(trait);
+        if (cancel)
+            event.setCancelled(true);
+        this.metrics.recordListenerCall(npc.isPresent(), cancel);
+        if (flight != null)
+            flight.end(handler, entity, npc.isPresent(), cancel);
     }
 
 }
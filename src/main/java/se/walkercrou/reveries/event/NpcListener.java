@@ -1,25 +1,19 @@
 package se.walkercrou.reveries.event;
 
-import org.spongepowered.api.entity.living.Living;
-import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.event.Listener;
-import org.spongepowered.api.event.filter.Getter;
-import org.spongepowered.api.event.filter.cause.First;
-import se.walkercrou.reveries.event.npc.NpcLoseSightOfPlayerEvent;
-import se.walkercrou.reveries.event.npc.NpcSpotPlayerEvent;
+import org.spongepowered.api.event.Order;
+import se.walkercrou.reveries.event.npc.NpcVisibilityChangeEvent;
 
 public final class NpcListener {
 
-    @Listener
-    public void onPlayerSpot(NpcSpotPlayerEvent event, @Getter("getTargetEntity") Living npc, @First Player player) {
-        System.out.println("NPC <" + npc.getUniqueId() + "> spotted " + player.getName() + ".");
-    }
-
-    @Listener
-    public void onPlayerSightLost(NpcLoseSightOfPlayerEvent event,
-                                  @Getter("getTargetEntity") Living npc,
-                                  @First Player player) {
-        System.out.println("NPC <" + npc.getUniqueId() + "> lost sight of " + player.getName() + ".");
+    @Listener(order = Order.POST)
+    public void onVisibilityChange(NpcVisibilityChangeEvent event) {
+        for (int i = 0; i < event.size(); i++) {
+            if (event.isCancelled(i))
+                continue;
+            System.out.println("NPC <" + event.getNpc(i).getUniqueId() + "> "
+                + (event.isSpotted(i) ? "spotted " : "lost sight of ") + event.getPlayer(i).getName() + ".");
+        }
     }
 
 }
@@ -0,0 +1,63 @@
+package se.walkercrou.reveries.event;
+
+import org.spongepowered.api.entity.Entity;
+import org.spongepowered.api.event.Listener;
+import org.spongepowered.api.event.Order;
+import org.spongepowered.api.event.entity.DestructEntityEvent;
+import org.spongepowered.api.event.entity.SpawnEntityEvent;
+import org.spongepowered.api.event.filter.Getter;
+import org.spongepowered.api.event.world.chunk.UnloadChunkEvent;
+import org.spongepowered.api.world.Chunk;
+import se.walkercrou.reveries.Npc;
+import se.walkercrou.reveries.NpcRegistry;
+import se.walkercrou.reveries.NpcTickEngine;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public final class NpcRegistryListener {
+
+    private final NpcRegistry registry;
+    private final NpcTickEngine engine;
+
+    public NpcRegistryListener(NpcRegistry registry, NpcTickEngine engine) {
+        this.registry = registry;
+        this.engine = engine;
+    }
+
+    /**
+     * Also fires for entities loaded with their chunk, which is how NPCs are discovered after a restart. NPCs that
+     * have a sight range go straight back to being monitored.
+     */
+    @Listener(order = Order.POST)
+    public void onEntitySpawn(SpawnEntityEvent event, @Getter("getEntities") List<Entity> entities) {
+        for (Entity entity : entities) {
+            Optional<Npc> npc = this.registry.register(entity);
+            if (npc.isPresent() && npc.get().getSightRange() > 0)
+                this.engine.resume(npc.get());
+        }
+    }
+
+    @Listener(order = Order.POST)
+    public void onEntityDestruct(DestructEntityEvent event, @Getter("getTargetEntity") Entity entity) {
+        this.registry.destroy(entity.getUniqueId());
+        this.engine.remove(entity.getUniqueId());
+    }
+
+    /**
+     * NPCs in an unloading chunk are forgotten along with their monitors, dormant or not, as their entities are gone.
+     * They are monitored again once their chunk loads and they are spawned anew.
+     */
+    @Listener(order = Order.POST)
+    public void onChunkUnload(UnloadChunkEvent event, @Getter("getTargetChunk") Chunk chunk) {
+        for (Entity entity : chunk.getEntities()) {
+            UUID entityId = entity.getUniqueId();
+            if (this.registry.isNpc(entityId)) {
+                this.registry.unregister(entityId);
+                this.engine.remove(entityId);
+            }
+        }
+    }
+
+}
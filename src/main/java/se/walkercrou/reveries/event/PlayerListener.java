@@ -0,0 +1,48 @@
+package se.walkercrou.reveries.event;
+
+import org.spongepowered.api.entity.Transform;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.event.Listener;
+import org.spongepowered.api.event.Order;
+import org.spongepowered.api.event.entity.MoveEntityEvent;
+import org.spongepowered.api.event.entity.living.humanoid.player.RespawnPlayerEvent;
+import org.spongepowered.api.event.filter.Getter;
+import org.spongepowered.api.event.network.ClientConnectionEvent;
+import org.spongepowered.api.world.World;
+import se.walkercrou.reveries.NpcTickEngine;
+
+public final class PlayerListener {
+
+    private final NpcTickEngine engine;
+
+    public PlayerListener(NpcTickEngine engine) {
+        this.engine = engine;
+    }
+
+    @Listener(order = Order.POST)
+    public void onPlayerJoin(ClientConnectionEvent.Join event, @Getter("getTargetEntity") Player player) {
+        this.engine.addPlayer(player);
+    }
+
+    @Listener(order = Order.POST)
+    public void onPlayerQuit(ClientConnectionEvent.Disconnect event, @Getter("getTargetEntity") Player player) {
+        this.engine.removePlayer(player.getUniqueId());
+    }
+
+    @Listener(order = Order.POST)
+    public void onPlayerRespawn(RespawnPlayerEvent event, @Getter("getTargetEntity") Player player) {
+        this.engine.addPlayer(player);
+    }
+
+    @Listener(order = Order.POST)
+    public void onPlayerTeleport(MoveEntityEvent.Teleport event, @Getter("getTargetEntity") Player player) {
+        Transform<World> from = event.getFromTransform();
+        Transform<World> to = event.getToTransform();
+        if (!from.getExtent().getUniqueId().equals(to.getExtent().getUniqueId())) {
+            this.engine.forgetPlayer(player.getUniqueId());
+            // the player may have been recreated for the new world, make sure the slot refers to the current one
+            this.engine.addPlayer(player);
+        }
+    }
+
+}
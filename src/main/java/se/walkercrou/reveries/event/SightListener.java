@@ -0,0 +1,49 @@
+package se.walkercrou.reveries.event;
+
+import com.flowpowered.math.vector.Vector3i;
+import org.spongepowered.api.block.BlockSnapshot;
+import org.spongepowered.api.block.BlockTransaction;
+import org.spongepowered.api.event.Listener;
+import org.spongepowered.api.event.Order;
+import org.spongepowered.api.event.block.ChangeBlockEvent;
+import org.spongepowered.api.event.filter.Getter;
+import org.spongepowered.api.event.world.UnloadWorldEvent;
+import org.spongepowered.api.event.world.chunk.UnloadChunkEvent;
+import org.spongepowered.api.world.Chunk;
+import org.spongepowered.api.world.World;
+import se.walkercrou.reveries.sight.OpacityCache;
+
+/**
+ * Keeps the {@link OpacityCache} in step with the worlds it mirrors.
+ */
+public final class SightListener {
+
+    private final OpacityCache opacity;
+
+    public SightListener(OpacityCache opacity) {
+        this.opacity = opacity;
+    }
+
+    @Listener(order = Order.POST)
+    public void onBlockChange(ChangeBlockEvent.Post event) {
+        for (BlockTransaction transaction : event.getTransactions()) {
+            if (!transaction.isValid())
+                continue;
+            BlockSnapshot block = transaction.getFinal();
+            Vector3i pos = block.getPosition();
+            this.opacity.update(block.getWorldUniqueId(), pos.getX(), pos.getY(), pos.getZ(), block.getState());
+        }
+    }
+
+    @Listener(order = Order.POST)
+    public void onChunkUnload(UnloadChunkEvent event, @Getter("getTargetChunk") Chunk chunk) {
+        Vector3i pos = chunk.getPosition();
+        this.opacity.unloadChunk(chunk.getWorld().getUniqueId(), pos.getX(), pos.getZ());
+    }
+
+    @Listener(order = Order.POST)
+    public void onWorldUnload(UnloadWorldEvent event, @Getter("getTargetWorld") World world) {
+        this.opacity.unloadWorld(world.getUniqueId());
+    }
+
+}
@@ -0,0 +1,77 @@
+package se.walkercrou.reveries.event.npc;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+import org.spongepowered.api.entity.living.Living;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.event.cause.Cause;
+import org.spongepowered.api.event.impl.AbstractEvent;
+
+import java.util.BitSet;
+
+/**
+ * Every NPC-player visibility transition of a single tick. Entry {@code i} describes {@link #getNpc(int)} either
+ * spotting or losing sight of {@link #getPlayer(int)}; cancelling an entry keeps that NPC's view of the player as it
+ * was. The event is backed by buffers that are reused on the next tick, so listeners must not hold on to it.
+ */
+public final class NpcVisibilityChangeEvent extends AbstractEvent {
+
+    private final Cause cause;
+    private final int size;
+    private final Living[] npcs;
+    private final Player[] players;
+    private final boolean[] spotted;
+    private final BitSet cancelled;
+    private final boolean cancellable;
+
+    public NpcVisibilityChangeEvent(Cause cause, int size, Living[] npcs, Player[] players, boolean[] spotted,
+                                    BitSet cancelled, boolean cancellable) {
+        this.cause = cause;
+        this.size = size;
+        this.npcs = npcs;
+        this.players = players;
+        this.spotted = spotted;
+        this.cancelled = cancelled;
+        this.cancellable = cancellable;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public Living getNpc(int index) {
+        checkElementIndex(index, this.size);
+        return this.npcs[index];
+    }
+
+    public Player getPlayer(int index) {
+        checkElementIndex(index, this.size);
+        return this.players[index];
+    }
+
+    public boolean isSpotted(int index) {
+        checkElementIndex(index, this.size);
+        return this.spotted[index];
+    }
+
+    public boolean isCancellable() {
+        return this.cancellable;
+    }
+
+    public boolean isCancelled(int index) {
+        checkElementIndex(index, this.size);
+        return this.cancelled.get(index);
+    }
+
+    public void setCancelled(int index, boolean cancel) {
+        checkElementIndex(index, this.size);
+        if (this.cancellable)
+            this.cancelled.set(index, cancel);
+    }
+
+    @Override
+    public Cause getCause() {
+        return this.cause;
+    }
+
+}
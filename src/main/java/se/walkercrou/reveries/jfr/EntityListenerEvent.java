@@ -0,0 +1,67 @@
+package se.walkercrou.reveries.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import org.spongepowered.api.entity.Entity;
+
+@Name("reveries.EntityListener")
+@Label("Entity Listener")
+@Category({ Jfr.CATEGORY, "Listeners" })
+@Description("Trait check of an entity event, which runs for every entity and not only NPCs")
+@StackTrace(false)
+@Threshold("20 us")
+public final class EntityListenerEvent extends Event {
+
+    @Label("Handler")
+    String handler;
+
+    @Label("Entity")
+    String entity;
+
+    @Label("World")
+    String world;
+
+    @Label("NPC")
+    boolean npc;
+
+    @Label("Cancelled")
+    boolean cancelled;
+
+    private static EventType type;
+
+    /**
+     * Returns whether a running recording has this event enabled. Checked before every entity event, so that no event
+     * is allocated while nothing records.
+     */
+    public static boolean isRecorded() {
+        EventType type = EntityListenerEvent.type;
+        if (type == null)
+            EntityListenerEvent.type = type = EventType.getEventType(EntityListenerEvent.class);
+        return type.isEnabled();
+    }
+
+    public static EntityListenerEvent start() {
+        EntityListenerEvent event = new EntityListenerEvent();
+        event.begin();
+        return event;
+    }
+
+    public void end(String handler, Entity entity, boolean npc, boolean cancelled) {
+        end();
+        if (shouldCommit()) {
+            this.handler = handler;
+            this.entity = Jfr.idOf(entity.getUniqueId());
+            this.world = Jfr.idOf(entity.getWorld().getUniqueId());
+            this.npc = npc;
+            this.cancelled = cancelled;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package se.walkercrou.reveries.jfr;
+
+/**
+ * Entry point to the Flight Recorder events of Reveries. Call sites check {@link #AVAILABLE} before touching an event
+ * class, so the events are never loaded on a JVM without Flight Recorder. The events raised for every entity and every
+ * NPC are also only created while a recording has them enabled, the others are always created and cost an allocation
+ * and two empty calls when nothing records. Fields are only filled in when an event is going to be committed.
+ */
+public final class Jfr {
+
+    public static final String CATEGORY = "Reveries";
+
+    public static final boolean AVAILABLE = isAvailable();
+
+    private Jfr() {}
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, Jfr.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    static String idOf(Object id) {
+        return id == null ? null : id.toString();
+    }
+
+}
@@ -0,0 +1,60 @@
+package se.walkercrou.reveries.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import java.util.UUID;
+
+@Name("reveries.NpcMonitor")
+@Label("NPC Monitor")
+@Category({ Jfr.CATEGORY, "Sight" })
+@Description("Sight check of a single NPC, recordings can lower the threshold to see every NPC")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class NpcMonitorEvent extends Event {
+
+    @Label("NPC")
+    String npc;
+
+    @Label("World")
+    String world;
+
+    @Label("Players In Range")
+    int playersInRange;
+
+    private static EventType type;
+
+    /**
+     * Returns whether a running recording has this event enabled. Checked before every sight check, so that no event is
+     * allocated while nothing records.
+     */
+    public static boolean isRecorded() {
+        EventType type = NpcMonitorEvent.type;
+        if (type == null)
+            NpcMonitorEvent.type = type = EventType.getEventType(NpcMonitorEvent.class);
+        return type.isEnabled();
+    }
+
+    public static NpcMonitorEvent start() {
+        NpcMonitorEvent event = new NpcMonitorEvent();
+        event.begin();
+        return event;
+    }
+
+    public void end(UUID npc, UUID world, int playersInRange) {
+        end();
+        if (shouldCommit()) {
+            this.npc = Jfr.idOf(npc);
+            this.world = Jfr.idOf(world);
+            this.playersInRange = playersInRange;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package se.walkercrou.reveries.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.spongepowered.api.entity.living.Living;
+
+@Name("reveries.NpcProperty")
+@Label("NPC Property Set")
+@Category({ Jfr.CATEGORY, "Properties" })
+@Description("Setting a property of an NPC")
+public final class NpcPropertyEvent extends Event {
+
+    @Label("NPC")
+    String npc;
+
+    @Label("World")
+    String world;
+
+    @Label("Property")
+    String property;
+
+    @Label("Changed")
+    boolean changed;
+
+    public static NpcPropertyEvent start() {
+        NpcPropertyEvent event = new NpcPropertyEvent();
+        event.begin();
+        return event;
+    }
+
+    public void end(Living npc, String property, boolean changed) {
+        end();
+        if (shouldCommit()) {
+            this.npc = Jfr.idOf(npc.getUniqueId());
+            this.world = Jfr.idOf(npc.getWorld().getUniqueId());
+            this.property = property;
+            this.changed = changed;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package se.walkercrou.reveries.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.UUID;
+
+@Name("reveries.NpcSpawn")
+@Label("NPC Spawn")
+@Category({ Jfr.CATEGORY, "Spawning" })
+@Description("Creation and spawning of a single NPC")
+public final class NpcSpawnEvent extends Event {
+
+    @Label("NPC")
+    String npc;
+
+    @Label("World")
+    String world;
+
+    @Label("Entity Type")
+    String entityType;
+
+    @Label("Spawned")
+    boolean spawned;
+
+    public static NpcSpawnEvent start() {
+        NpcSpawnEvent event = new NpcSpawnEvent();
+        event.begin();
+        return event;
+    }
+
+    public void end(UUID npc, UUID world, String entityType, boolean spawned) {
+        end();
+        if (shouldCommit()) {
+            this.npc = Jfr.idOf(npc);
+            this.world = Jfr.idOf(world);
+            this.entityType = entityType;
+            this.spawned = spawned;
+            commit();
+        }
+    }
+
+}
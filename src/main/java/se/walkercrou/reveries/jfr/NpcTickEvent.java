@@ -0,0 +1,46 @@
+package se.walkercrou.reveries.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("reveries.NpcTick")
+@Label("NPC Tick")
+@Category({ Jfr.CATEGORY, "Sight" })
+@Description("A pass of the NPC tick engine over every active monitor")
+@StackTrace(false)
+public final class NpcTickEvent extends Event {
+
+    @Label("Active Monitors")
+    int activeMonitors;
+
+    @Label("Dormant Monitors")
+    int dormantMonitors;
+
+    @Label("Players")
+    int players;
+
+    @Label("Async")
+    boolean async;
+
+    public static NpcTickEvent start() {
+        NpcTickEvent event = new NpcTickEvent();
+        event.begin();
+        return event;
+    }
+
+    public void end(int activeMonitors, int dormantMonitors, int players, boolean async) {
+        end();
+        if (shouldCommit()) {
+            this.activeMonitors = activeMonitors;
+            this.dormantMonitors = dormantMonitors;
+            this.players = players;
+            this.async = async;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package se.walkercrou.reveries.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("reveries.SkinResolve")
+@Label("Skin Resolve")
+@Category({ Jfr.CATEGORY, "Skins" })
+@Description("Resolving a player name to a skin profile, from the request until the profile is known")
+public final class SkinResolveEvent extends Event {
+
+    @Label("Name")
+    String name;
+
+    @Label("Cached")
+    boolean cached;
+
+    @Label("Found")
+    boolean found;
+
+    public static SkinResolveEvent start() {
+        SkinResolveEvent event = new SkinResolveEvent();
+        event.begin();
+        return event;
+    }
+
+    public void end(String name, boolean cached, boolean found) {
+        end();
+        if (shouldCommit()) {
+            this.name = name;
+            this.cached = cached;
+            this.found = found;
+            commit();
+        }
+    }
+
+}
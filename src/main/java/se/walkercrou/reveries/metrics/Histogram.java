@@ -0,0 +1,72 @@
+package se.walkercrou.reveries.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non-negative values in power of two buckets, recorded with striped counters so that recording from
+ * several threads never contends on a single word. Percentiles are only as precise as the buckets, which is plenty to
+ * tell which subsystem is eating the tick.
+ */
+public final class Histogram {
+
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public Histogram() {
+        for (int i = 0; i < BUCKETS; i++)
+            this.buckets[i] = new LongAdder();
+    }
+
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+        this.buckets[63 - Long.numberOfLeadingZeros(value | 1)].increment();
+        this.count.increment();
+        this.sum.add(value);
+        this.max.accumulate(value);
+    }
+
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    public double getMean() {
+        long count = this.count.sum();
+        return count == 0 ? 0 : (double) this.sum.sum() / count;
+    }
+
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the given percentile, from 0 to 100, of the recorded values.
+     */
+    public long getPercentile(double percentile) {
+        long count = this.count.sum();
+        if (count == 0)
+            return 0;
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.buckets[i].sum();
+            if (seen >= Math.max(1, rank))
+                return Math.min(i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1, getMax());
+        }
+        return getMax();
+    }
+
+    public void reset() {
+        for (LongAdder bucket : this.buckets)
+            bucket.reset();
+        this.count.reset();
+        this.sum.reset();
+        this.max.reset();
+    }
+
+}
@@ -0,0 +1,261 @@
+package se.walkercrou.reveries.metrics;
+
+import se.walkercrou.reveries.Reveries;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and histograms of the work Reveries does each tick, grouped by the subsystem that does it. Everything is
+ * recorded with striped counters, which cost about as much as a plain increment when uncontended and never make
+ * recording threads wait on each other. The metrics are shown by {@code /npc stats} and published over JMX.
+ */
+public final class NpcMetrics implements NpcMetricsMXBean {
+
+    public static final String OBJECT_NAME = "se.walkercrou.reveries:type=NpcMetrics";
+
+    private final Reveries plugin;
+
+    // sight
+    private final Histogram passTime = new Histogram();
+    private final LongAdder npcsChecked = new LongAdder();
+    private final LongAdder playersInRange = new LongAdder();
+    private final LongAdder raysCast = new LongAdder();
+
+    // events
+    private final LongAdder batchesPosted = new LongAdder();
+    private final LongAdder transitions = new LongAdder();
+    private final LongAdder transitionsCancelled = new LongAdder();
+    private final LongAdder singleEventsPosted = new LongAdder();
+    private final LongAdder singleEventsCancelled = new LongAdder();
+
+    // head tracking
+    private final LongAdder headTurns = new LongAdder();
+    private final LongAdder headTurnsSkipped = new LongAdder();
+
+    // entity listener
+    private final LongAdder listenerCalls = new LongAdder();
+    private final LongAdder listenerNpcHits = new LongAdder();
+    private final LongAdder listenerCancels = new LongAdder();
+
+    private ObjectName objectName;
+
+    public NpcMetrics(Reveries plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Publishes these metrics with the platform MBean server.
+     */
+    public void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        // a previous instance is left behind when the plugin is reloaded in the same JVM
+        if (server.isRegistered(name))
+            server.unregisterMBean(name);
+        server.registerMBean(this, name);
+        this.objectName = name;
+    }
+
+    public void unregister() throws JMException {
+        if (this.objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+            this.objectName = null;
+        }
+    }
+
+    public void recordPass(long nanos) {
+        this.passTime.record(nanos);
+    }
+
+    public void recordCheck(int playersInRange) {
+        this.npcsChecked.increment();
+        this.playersInRange.add(playersInRange);
+    }
+
+    public void recordRay() {
+        this.raysCast.increment();
+    }
+
+    public void recordBatch(int transitions, int cancelled) {
+        this.batchesPosted.increment();
+        this.transitions.add(transitions);
+        this.transitionsCancelled.add(cancelled);
+    }
+
+    public void recordSingleEvent(boolean cancelled) {
+        this.singleEventsPosted.increment();
+        if (cancelled)
+            this.singleEventsCancelled.increment();
+    }
+
+    public void recordHeadTurn(boolean turned) {
+        (turned ? this.headTurns : this.headTurnsSkipped).increment();
+    }
+
+    public void recordListenerCall(boolean npc, boolean cancelled) {
+        this.listenerCalls.increment();
+        if (npc)
+            this.listenerNpcHits.increment();
+        if (cancelled)
+            this.listenerCancels.increment();
+    }
+
+    public Histogram getPassTime() {
+        return this.passTime;
+    }
+
+    @Override
+    public int getLoadedNpcs() {
+        return this.plugin.getRegistry().size();
+    }
+
+    @Override
+    public int getMonitoredNpcs() {
+        return this.plugin.getEngine().size();
+    }
+
+    @Override
+    public int getActiveMonitors() {
+        return this.plugin.getEngine().getActiveCount();
+    }
+
+    @Override
+    public int getDormantMonitors() {
+        return this.plugin.getEngine().getDormantCount();
+    }
+
+    @Override
+    public long getPassCount() {
+        return this.passTime.getCount();
+    }
+
+    @Override
+    public double getPassMeanNanos() {
+        return this.passTime.getMean();
+    }
+
+    @Override
+    public long getPassP99Nanos() {
+        return this.passTime.getPercentile(99);
+    }
+
+    @Override
+    public long getPassMaxNanos() {
+        return this.passTime.getMax();
+    }
+
+    @Override
+    public long getNpcsChecked() {
+        return this.npcsChecked.sum();
+    }
+
+    @Override
+    public long getPlayersInRange() {
+        return this.playersInRange.sum();
+    }
+
+    @Override
+    public long getRaysCast() {
+        return this.raysCast.sum();
+    }
+
+    @Override
+    public long getBatchesPosted() {
+        return this.batchesPosted.sum();
+    }
+
+    @Override
+    public long getTransitions() {
+        return this.transitions.sum();
+    }
+
+    @Override
+    public long getTransitionsCancelled() {
+        return this.transitionsCancelled.sum();
+    }
+
+    @Override
+    public long getSingleEventsPosted() {
+        return this.singleEventsPosted.sum();
+    }
+
+    @Override
+    public long getSingleEventsCancelled() {
+        return this.singleEventsCancelled.sum();
+    }
+
+    @Override
+    public long getHeadTurns() {
+        return this.headTurns.sum();
+    }
+
+    @Override
+    public long getHeadTurnsSkipped() {
+        return this.headTurnsSkipped.sum();
+    }
+
+    @Override
+    public long getListenerCalls() {
+        return this.listenerCalls.sum();
+    }
+
+    @Override
+    public long getListenerNpcHits() {
+        return this.listenerNpcHits.sum();
+    }
+
+    @Override
+    public long getListenerCancels() {
+        return this.listenerCancels.sum();
+    }
+
+    @Override
+    public long getSkinRequests() {
+        return this.plugin.getSkins().getRequestCount();
+    }
+
+    @Override
+    public long getSkinCacheHits() {
+        return this.plugin.getSkins().getHitCount();
+    }
+
+    @Override
+    public long getSkinLookups() {
+        return this.plugin.getSkins().getLookupCount();
+    }
+
+    @Override
+    public long getSkinLookupFailures() {
+        return this.plugin.getSkins().getFailureCount();
+    }
+
+    @Override
+    public double getSkinLookupMeanNanos() {
+        return this.plugin.getSkins().getLookupTime().getMean();
+    }
+
+    @Override
+    public void reset() {
+        this.passTime.reset();
+        this.npcsChecked.reset();
+        this.playersInRange.reset();
+        this.raysCast.reset();
+        this.batchesPosted.reset();
+        this.transitions.reset();
+        this.transitionsCancelled.reset();
+        this.singleEventsPosted.reset();
+        this.singleEventsCancelled.reset();
+        this.headTurns.reset();
+        this.headTurnsSkipped.reset();
+        this.listenerCalls.reset();
+        this.listenerNpcHits.reset();
+        this.listenerCancels.reset();
+        this.plugin.getSkins().resetStats();
+    }
+
+}
@@ -0,0 +1,62 @@
+package se.walkercrou.reveries.metrics;
+
+/**
+ * Management interface of {@link NpcMetrics}, registered as {@value NpcMetrics#OBJECT_NAME}. Times are in nanoseconds.
+ */
+public interface NpcMetricsMXBean {
+
+    int getLoadedNpcs();
+
+    int getMonitoredNpcs();
+
+    int getActiveMonitors();
+
+    int getDormantMonitors();
+
+    long getPassCount();
+
+    double getPassMeanNanos();
+
+    long getPassP99Nanos();
+
+    long getPassMaxNanos();
+
+    long getNpcsChecked();
+
+    long getPlayersInRange();
+
+    long getRaysCast();
+
+    long getBatchesPosted();
+
+    long getTransitions();
+
+    long getTransitionsCancelled();
+
+    long getSingleEventsPosted();
+
+    long getSingleEventsCancelled();
+
+    long getHeadTurns();
+
+    long getHeadTurnsSkipped();
+
+    long getListenerCalls();
+
+    long getListenerNpcHits();
+
+    long getListenerCancels();
+
+    long getSkinRequests();
+
+    long getSkinCacheHits();
+
+    long getSkinLookups();
+
+    long getSkinLookupFailures();
+
+    double getSkinLookupMeanNanos();
+
+    void reset();
+
+}
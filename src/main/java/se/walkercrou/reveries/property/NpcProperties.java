@@ -8,9 +8,13 @@ import se.walkercrou.reveries.property.display.DisplayNameProperty;
 import se.walkercrou.reveries.property.display.NameTagVisibleProperty;
 import se.walkercrou.reveries.property.display.SkinProperty;
 import se.walkercrou.reveries.property.transform.LocationProperty;
+import se.walkercrou.reveries.property.transform.MonitorIntervalProperty;
 import se.walkercrou.reveries.property.transform.RidingProperty;
 import se.walkercrou.reveries.property.transform.RotationProperty;
+import se.walkercrou.reveries.property.transform.SightModeProperty;
 import se.walkercrou.reveries.property.transform.SightProperty;
+import se.walkercrou.reveries.property.transform.ViewAngleProperty;
+import se.walkercrou.reveries.sight.SightMode;
 
 public final class NpcProperties {
 
@@ -20,6 +24,12 @@ public final class NpcProperties {
 
     public static final NpcProperty<Double> SIGHT_RANGE = new SightProperty();
 
+    public static final NpcProperty<Double> VIEW_ANGLE = new ViewAngleProperty();
+
+    public static final NpcProperty<SightMode> SIGHT_MODE = new SightModeProperty();
+
+    public static final NpcProperty<Integer> MONITOR_INTERVAL = new MonitorIntervalProperty();
+
     public static final NpcProperty<Location<World>> LOCATION = new LocationProperty();
 
     public static final NpcProperty<Entity> RIDING = new RidingProperty();
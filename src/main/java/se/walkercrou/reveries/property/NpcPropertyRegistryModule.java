@@ -35,6 +35,9 @@ public final class NpcPropertyRegistryModule implements CatalogRegistryModule<Np
         this.propertyMappings.put("displayName", DISPLAY_NAME);
         this.propertyMappings.put("skin", SKIN);
         this.propertyMappings.put("sight", SIGHT_RANGE);
+        this.propertyMappings.put("viewAngle", VIEW_ANGLE);
+        this.propertyMappings.put("sightMode", SIGHT_MODE);
+        this.propertyMappings.put("monitorInterval", MONITOR_INTERVAL);
         this.propertyMappings.put("location", LOCATION);
         this.propertyMappings.put("riding", RIDING);
         this.propertyMappings.put("rotation", ROTATION);
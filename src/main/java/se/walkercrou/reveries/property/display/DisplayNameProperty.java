@@ -6,6 +6,7 @@ import org.spongepowered.api.data.manipulator.mutable.DisplayNameData;
 import org.spongepowered.api.entity.living.Living;
 import org.spongepowered.api.text.Text;
 import org.spongepowered.api.text.serializer.TextSerializers;
+import se.walkercrou.reveries.Reveries;
 import se.walkercrou.reveries.data.NpcKeys;
 import se.walkercrou.reveries.data.npc.NpcData;
 import se.walkercrou.reveries.property.NpcProperty;
@@ -26,7 +27,7 @@ public final class DisplayNameProperty implements NpcProperty<String> {
     public boolean set(Living npc, String value, @Nullable CommandSource src) {
         Text displayName = TextSerializers.FORMATTING_CODE.deserialize(value);
         NpcData data = npc.get(NpcData.class).get();
-        return npc.offer(data.set(NpcKeys.DISPLAY_NAME, displayName)).isSuccessful()
+        return Reveries.INSTANCE.getRegistry().offer(npc, data.set(NpcKeys.DISPLAY_NAME, displayName)).isSuccessful()
             && (!npc.supports(DisplayNameData.class)
                 || npc.offer(npc.getOrCreate(DisplayNameData.class).get()
                     .set(Keys.DISPLAY_NAME, displayName)).isSuccessful());
@@ -39,7 +40,8 @@ public final class DisplayNameProperty implements NpcProperty<String> {
 
     @Override
     public Optional<String> get(Living npc) {
-        return Optional.of(TextSerializers.FORMATTING_CODE.serialize(npc.get(NpcData.class).get().displayName().get()));
+        return Reveries.INSTANCE.getRegistry().get(npc)
+            .map(handle -> TextSerializers.FORMATTING_CODE.serialize(handle.getDisplayName()));
     }
 
     @Override
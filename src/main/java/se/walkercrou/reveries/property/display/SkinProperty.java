@@ -1,18 +1,20 @@
 package se.walkercrou.reveries.property.display;
 
 import com.google.common.collect.ImmutableMap;
-import org.spongepowered.api.Sponge;
 import org.spongepowered.api.command.CommandSource;
 import org.spongepowered.api.data.key.Keys;
 import org.spongepowered.api.data.manipulator.mutable.entity.SkinData;
 import org.spongepowered.api.entity.living.Living;
+import org.spongepowered.api.profile.GameProfile;
 import org.spongepowered.api.text.Text;
 import se.walkercrou.reveries.Messages;
+import se.walkercrou.reveries.Reveries;
 import se.walkercrou.reveries.property.NpcProperty;
 import se.walkercrou.reveries.property.PropertyException;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import javax.annotation.Nullable;
 
@@ -32,20 +34,33 @@ public final class SkinProperty implements NpcProperty<String> {
             UUID skinId = UUID.fromString(value);
             return npc.offer(data.set(Keys.SKIN_UNIQUE_ID, skinId)).isSuccessful();
         } catch (IllegalArgumentException e) {
+            Reveries plugin = Reveries.INSTANCE;
+            CompletableFuture<Optional<GameProfile>> lookup = plugin.getSkins().get(value);
+            if (lookup.isDone() && !lookup.isCompletedExceptionally()) {
+                Optional<GameProfile> profile = lookup.join();
+                if (!profile.isPresent()) {
+                    if (src != null)
+                        src.sendMessage(Messages.SKIN_NOT_FOUND);
+                    return false;
+                }
+                return npc.offer(data.set(Keys.SKIN_UNIQUE_ID, profile.get().getUniqueId())).isSuccessful();
+            }
+
             if (src != null)
                 src.sendMessage(Messages.SKIN_LOOKUP);
 
-            Sponge.getGame().getServer().getGameProfileManager().get(value).whenComplete((profile, thrown) -> {
-                if (thrown != null) {
+            // lookups complete off the main thread, the entity is only touched back on it
+            lookup.whenCompleteAsync((profile, thrown) -> {
+                if (thrown != null || !profile.isPresent()) {
                     if (src != null)
                         src.sendMessage(Messages.SKIN_NOT_FOUND);
                     return;
                 }
 
-                boolean result = npc.offer(data.set(Keys.SKIN_UNIQUE_ID, profile.getUniqueId())).isSuccessful();
+                boolean result = npc.offer(data.set(Keys.SKIN_UNIQUE_ID, profile.get().getUniqueId())).isSuccessful();
                 if (src != null && result)
                     src.sendMessage(Messages.UPDATED_PROPS, ImmutableMap.of("amount", Text.of(1)));
-            });
+            }, plugin.game.getScheduler().createSyncExecutor(plugin));
 
             return false;
         }
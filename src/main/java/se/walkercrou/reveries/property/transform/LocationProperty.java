@@ -4,6 +4,8 @@ import org.spongepowered.api.command.CommandSource;
 import org.spongepowered.api.entity.living.Living;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
+import se.walkercrou.reveries.NpcRegistry;
+import se.walkercrou.reveries.Reveries;
 import se.walkercrou.reveries.property.NpcProperty;
 import se.walkercrou.reveries.property.PropertyException;
 
@@ -20,7 +22,11 @@ public final class LocationProperty implements NpcProperty<Location<World>> {
 
     @Override
     public boolean set(Living npc, Location<World> value, CommandSource src) {
-        return npc.setLocation(value);
+        if (!npc.setLocation(value))
+            return false;
+        NpcRegistry registry = Reveries.INSTANCE.getRegistry();
+        registry.get(npc.getUniqueId()).ifPresent(registry::relocate);
+        return true;
     }
 
     @Override
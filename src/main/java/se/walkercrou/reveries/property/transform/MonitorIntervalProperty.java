@@ -0,0 +1,53 @@
+package se.walkercrou.reveries.property.transform;
+
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.entity.living.Living;
+import se.walkercrou.reveries.Npc;
+import se.walkercrou.reveries.Reveries;
+import se.walkercrou.reveries.data.NpcKeys;
+import se.walkercrou.reveries.data.npc.NpcData;
+import se.walkercrou.reveries.property.NpcProperty;
+import se.walkercrou.reveries.property.PropertyException;
+
+import java.util.Optional;
+
+import javax.annotation.Nullable;
+
+/**
+ * How often, in ticks, an NPC's sight is checked. Zero lets the tick engine pick an interval from the distance to the
+ * nearest player.
+ */
+public final class MonitorIntervalProperty implements NpcProperty<Integer> {
+
+    @Override
+    public boolean supports(Object value) {
+        return value instanceof Integer && (Integer) value >= 0;
+    }
+
+    @Override
+    public boolean set(Living npc, Integer value, @Nullable CommandSource src) throws PropertyException {
+        return Reveries.INSTANCE.getRegistry()
+            .offer(npc, npc.get(NpcData.class).get().set(NpcKeys.MONITOR_INTERVAL, value)).isSuccessful();
+    }
+
+    @Override
+    public boolean clear(Living npc, @Nullable CommandSource src) throws PropertyException {
+        return set(npc, 0, src);
+    }
+
+    @Override
+    public Optional<Integer> get(Living npc) {
+        return Reveries.INSTANCE.getRegistry().get(npc).map(Npc::getMonitorInterval);
+    }
+
+    @Override
+    public String getId() {
+        return "monitorInterval";
+    }
+
+    @Override
+    public String getName() {
+        return "Monitor Interval";
+    }
+
+}
@@ -0,0 +1,53 @@
+package se.walkercrou.reveries.property.transform;
+
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.entity.living.Living;
+import se.walkercrou.reveries.Npc;
+import se.walkercrou.reveries.Reveries;
+import se.walkercrou.reveries.data.NpcKeys;
+import se.walkercrou.reveries.data.npc.NpcData;
+import se.walkercrou.reveries.property.NpcProperty;
+import se.walkercrou.reveries.property.PropertyException;
+import se.walkercrou.reveries.sight.SightMode;
+
+import java.util.Optional;
+
+import javax.annotation.Nullable;
+
+/**
+ * Whether an NPC sees every player within its sight range or only those it has a clear line of sight to.
+ */
+public final class SightModeProperty implements NpcProperty<SightMode> {
+
+    @Override
+    public boolean supports(Object value) {
+        return value instanceof SightMode;
+    }
+
+    @Override
+    public boolean set(Living npc, SightMode value, @Nullable CommandSource src) throws PropertyException {
+        return Reveries.INSTANCE.getRegistry()
+            .offer(npc, npc.get(NpcData.class).get().set(NpcKeys.SIGHT_MODE, value)).isSuccessful();
+    }
+
+    @Override
+    public boolean clear(Living npc, @Nullable CommandSource src) throws PropertyException {
+        return set(npc, SightMode.DISTANCE, src);
+    }
+
+    @Override
+    public Optional<SightMode> get(Living npc) {
+        return Reveries.INSTANCE.getRegistry().get(npc).map(Npc::getSightMode);
+    }
+
+    @Override
+    public String getId() {
+        return "sightMode";
+    }
+
+    @Override
+    public String getName() {
+        return "Sight Mode";
+    }
+
+}
@@ -2,6 +2,7 @@ package se.walkercrou.reveries.property.transform;
 
 import org.spongepowered.api.command.CommandSource;
 import org.spongepowered.api.entity.living.Living;
+import se.walkercrou.reveries.Npc;
 import se.walkercrou.reveries.Reveries;
 import se.walkercrou.reveries.data.NpcKeys;
 import se.walkercrou.reveries.data.npc.NpcData;
@@ -21,9 +22,14 @@ public final class SightProperty implements NpcProperty<Double> {
 
     @Override
     public boolean set(Living npc, Double value, @Nullable CommandSource src) throws PropertyException {
-        boolean success = npc.offer(npc.get(NpcData.class).get().set(NpcKeys.SIGHT_RANGE, value)).isSuccessful();
-        if (value > 0 && success && !Reveries.INSTANCE.isMonitoring(npc))
-            Reveries.INSTANCE.monitor(npc);
+        boolean success = Reveries.INSTANCE.getRegistry()
+            .offer(npc, npc.get(NpcData.class).get().set(NpcKeys.SIGHT_RANGE, value)).isSuccessful();
+        if (value > 0 && success) {
+            if (!Reveries.INSTANCE.isMonitoring(npc))
+                Reveries.INSTANCE.monitor(npc);
+            else
+                Reveries.INSTANCE.getEngine().wake(npc.getUniqueId());
+        }
         return success;
     }
 
@@ -33,7 +39,7 @@ public final class SightProperty implements NpcProperty<Double> {
 
     @Override
     public Optional<Double> get(Living npc) {
-        return Optional.of(npc.get(NpcData.class).get().sightRange().get());
+        return Reveries.INSTANCE.getRegistry().get(npc).map(Npc::getSightRange);
     }
 
     @Override
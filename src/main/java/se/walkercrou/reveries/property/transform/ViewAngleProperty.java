@@ -0,0 +1,52 @@
+package se.walkercrou.reveries.property.transform;
+
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.entity.living.Living;
+import se.walkercrou.reveries.Npc;
+import se.walkercrou.reveries.Reveries;
+import se.walkercrou.reveries.data.NpcKeys;
+import se.walkercrou.reveries.data.npc.NpcData;
+import se.walkercrou.reveries.property.NpcProperty;
+import se.walkercrou.reveries.property.PropertyException;
+
+import java.util.Optional;
+
+import javax.annotation.Nullable;
+
+/**
+ * Width in degrees of the cone around an NPC's head rotation that it can see into. 360 lets it see all around.
+ */
+public final class ViewAngleProperty implements NpcProperty<Double> {
+
+    @Override
+    public boolean supports(Object value) {
+        return value instanceof Double && (Double) value > 0 && (Double) value <= 360;
+    }
+
+    @Override
+    public boolean set(Living npc, Double value, @Nullable CommandSource src) throws PropertyException {
+        return Reveries.INSTANCE.getRegistry()
+            .offer(npc, npc.get(NpcData.class).get().set(NpcKeys.VIEW_ANGLE, value)).isSuccessful();
+    }
+
+    @Override
+    public boolean clear(Living npc, @Nullable CommandSource src) throws PropertyException {
+        return set(npc, 360.0, src);
+    }
+
+    @Override
+    public Optional<Double> get(Living npc) {
+        return Reveries.INSTANCE.getRegistry().get(npc).map(Npc::getViewAngle);
+    }
+
+    @Override
+    public String getId() {
+        return "viewAngle";
+    }
+
+    @Override
+    public String getName() {
+        return "View Angle";
+    }
+
+}
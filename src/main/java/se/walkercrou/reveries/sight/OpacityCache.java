@@ -0,0 +1,173 @@
+package se.walkercrou.reveries.sight;
+
+import com.flowpowered.math.vector.Vector3d;
+import com.google.common.collect.Maps;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.data.property.AbstractProperty;
+import org.spongepowered.api.data.property.block.SolidCubeProperty;
+import org.spongepowered.api.world.Chunk;
+import org.spongepowered.api.world.World;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Answers line of sight queries against per-section opacity bitmaps. A bitmap covers one 16x16x16 chunk section at
+ * one bit per block and is only built the first time a ray passes through it, so only the sections between NPCs and
+ * the players they are looking for are ever read. Block changes flip single bits and chunk unloads drop the chunk's
+ * sections. Everything here must be used from the main thread.
+ */
+public final class OpacityCache {
+
+    private static final int SECTIONS = 16;
+    private static final int WORDS = 16 * 16 * 16 / 64;
+
+    private final Map<UUID, Map<Long, long[]>> worlds = Maps.newHashMap();
+    private final Map<BlockState, Boolean> opaqueStates = new IdentityHashMap<>();
+
+    /**
+     * Walks the blocks between the two points and returns false on the first opaque one. The blocks containing the
+     * end points themselves are never checked. Blocks in unloaded chunks count as transparent.
+     */
+    public boolean isClear(World world, Vector3d from, Vector3d to) {
+        Map<Long, long[]> sections = this.worlds.computeIfAbsent(world.getUniqueId(), id -> Maps.newHashMap());
+        double x0 = from.getX(), y0 = from.getY(), z0 = from.getZ();
+        double dx = to.getX() - x0, dy = to.getY() - y0, dz = to.getZ() - z0;
+        int x = floor(x0), y = floor(y0), z = floor(z0);
+        int steps = Math.abs(floor(to.getX()) - x) + Math.abs(floor(to.getY()) - y) + Math.abs(floor(to.getZ()) - z);
+
+        int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+        int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+        int stepZ = dz > 0 ? 1 : dz < 0 ? -1 : 0;
+        double deltaX = stepX == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dx);
+        double deltaY = stepY == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dy);
+        double deltaZ = stepZ == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dz);
+        double maxX = boundary(x0, x, stepX, deltaX);
+        double maxY = boundary(y0, y, stepY, deltaY);
+        double maxZ = boundary(z0, z, stepZ, deltaZ);
+
+        long lastKey = 0;
+        long[] bits = null;
+        for (int i = 0; i < steps - 1; i++) {
+            if (maxX < maxY && maxX < maxZ) {
+                x += stepX;
+                maxX += deltaX;
+            } else if (maxY < maxZ) {
+                y += stepY;
+                maxY += deltaY;
+            } else {
+                z += stepZ;
+                maxZ += deltaZ;
+            }
+
+            if (y < 0 || y >= SECTIONS * 16)
+                continue;
+            long key = key(x >> 4, y >> 4, z >> 4);
+            if (bits == null || key != lastKey) {
+                bits = getSection(world, sections, key, x >> 4, y >> 4, z >> 4);
+                lastKey = key;
+            }
+            if (bits != null && get(bits, index(x, y, z)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Updates the bit for a changed block if its section has been built.
+     */
+    public void update(UUID worldId, int x, int y, int z, BlockState state) {
+        Map<Long, long[]> sections = this.worlds.get(worldId);
+        if (sections == null || y < 0 || y >= SECTIONS * 16)
+            return;
+        long[] bits = sections.get(key(x >> 4, y >> 4, z >> 4));
+        if (bits == null)
+            return;
+        int index = index(x, y, z);
+        if (isOpaque(state))
+            bits[index >> 6] |= 1L << index;
+        else
+            bits[index >> 6] &= ~(1L << index);
+    }
+
+    public void unloadChunk(UUID worldId, int chunkX, int chunkZ) {
+        Map<Long, long[]> sections = this.worlds.get(worldId);
+        if (sections == null)
+            return;
+        for (int sy = 0; sy < SECTIONS; sy++)
+            sections.remove(key(chunkX, sy, chunkZ));
+    }
+
+    public void unloadWorld(UUID worldId) {
+        this.worlds.remove(worldId);
+    }
+
+    public void clear() {
+        this.worlds.clear();
+        this.opaqueStates.clear();
+    }
+
+    private long[] getSection(World world, Map<Long, long[]> sections, long key, int sx, int sy, int sz) {
+        long[] bits = sections.get(key);
+        if (bits != null)
+            return bits;
+        Optional<Chunk> chunk = world.getChunk(sx, 0, sz);
+        if (!chunk.isPresent())
+            return null;
+        bits = build(chunk.get(), sx << 4, sy << 4, sz << 4);
+        sections.put(key, bits);
+        return bits;
+    }
+
+    private long[] build(Chunk chunk, int minX, int minY, int minZ) {
+        long[] bits = new long[WORDS];
+        for (int y = minY; y < minY + 16; y++) {
+            for (int z = minZ; z < minZ + 16; z++) {
+                for (int x = minX; x < minX + 16; x++) {
+                    if (isOpaque(chunk.getBlock(x, y, z))) {
+                        int index = index(x, y, z);
+                        bits[index >> 6] |= 1L << index;
+                    }
+                }
+            }
+        }
+        return bits;
+    }
+
+    private boolean isOpaque(BlockState state) {
+        Boolean opaque = this.opaqueStates.get(state);
+        if (opaque == null) {
+            opaque = state.getProperty(SolidCubeProperty.class).map(AbstractProperty::getValue).orElse(false);
+            this.opaqueStates.put(state, opaque);
+        }
+        return opaque;
+    }
+
+    private static boolean get(long[] bits, int index) {
+        return (bits[index >> 6] & 1L << index) != 0;
+    }
+
+    private static int index(int x, int y, int z) {
+        return (y & 15) << 8 | (z & 15) << 4 | x & 15;
+    }
+
+    private static long key(int sx, int sy, int sz) {
+        return ((long) sx & 0xFFFFFF) << 40 | ((long) sz & 0xFFFFFF) << 16 | sy & 0xFFFF;
+    }
+
+    private static double boundary(double origin, int block, int step, double delta) {
+        if (step > 0)
+            return (block + 1 - origin) * delta;
+        else if (step < 0)
+            return (origin - block) * delta;
+        return Double.POSITIVE_INFINITY;
+    }
+
+    private static int floor(double d) {
+        int i = (int) d;
+        return d < i ? i - 1 : i;
+    }
+
+}
@@ -0,0 +1,12 @@
+package se.walkercrou.reveries.sight;
+
+/**
+ * How an NPC decides whether a player within its sight range can be seen. Persisted by ordinal, only ever append.
+ */
+public enum SightMode {
+
+    DISTANCE,
+
+    LINE_OF_SIGHT
+
+}
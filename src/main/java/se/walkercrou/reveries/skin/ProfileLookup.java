@@ -0,0 +1,18 @@
+package se.walkercrou.reveries.skin;
+
+import org.spongepowered.api.profile.GameProfile;
+import org.spongepowered.api.profile.ProfileNotFoundException;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Source of the profiles behind {@link SkinProfileCache}. On a server this is the game profile manager, anywhere else
+ * it can be a local stand-in. Profiles should be complete, with their signed texture properties filled in, and a name
+ * that has no profile should complete with a {@link ProfileNotFoundException}.
+ */
+@FunctionalInterface
+public interface ProfileLookup {
+
+    CompletableFuture<GameProfile> lookup(String name);
+
+}
@@ -0,0 +1,301 @@
+package se.walkercrou.reveries.skin;
+
+import com.google.common.collect.Maps;
+import org.spongepowered.api.profile.GameProfile;
+import org.spongepowered.api.profile.ProfileNotFoundException;
+import org.spongepowered.api.profile.property.ProfileProperty;
+import se.walkercrou.reveries.jfr.Jfr;
+import se.walkercrou.reveries.jfr.SkinResolveEvent;
+import se.walkercrou.reveries.metrics.Histogram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Least recently used cache of player name to {@link GameProfile}, texture properties included. Entries expire after a
+ * fixed time, names that have no profile are remembered for a shorter time, and concurrent requests for the same name
+ * share a single lookup. The cache can be saved to and loaded from disk so that it survives restarts, only profiles
+ * that carry a skin and names that have no profile are written. How often names are found in the cache and how long
+ * lookups take is counted for the metrics.
+ */
+public final class SkinProfileCache {
+
+    private static final int MAGIC = 0x52565350; // RVSP
+    private static final int VERSION = 2;
+    private static final String TEXTURES = "textures";
+
+    public static final int DEFAULT_MAX_SIZE = 1024;
+    public static final long DEFAULT_TTL = TimeUnit.HOURS.toMillis(6);
+    public static final long DEFAULT_NEGATIVE_TTL = TimeUnit.MINUTES.toMillis(10);
+
+    private final int maxSize;
+    private final long ttl;
+    private final long negativeTtl;
+    private final Map<String, Entry> entries;
+    private final Map<String, CompletableFuture<Optional<GameProfile>>> inFlight = Maps.newHashMap();
+    private ProfileLookup lookup;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final Histogram lookupTime = new Histogram();
+
+    public SkinProfileCache(ProfileLookup lookup) {
+        this(lookup, DEFAULT_MAX_SIZE, DEFAULT_TTL, DEFAULT_NEGATIVE_TTL);
+    }
+
+    public SkinProfileCache(ProfileLookup lookup, int maxSize, long ttl, long negativeTtl) {
+        this.lookup = lookup;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > SkinProfileCache.this.maxSize;
+            }
+        };
+    }
+
+    public synchronized void setLookup(ProfileLookup lookup) {
+        this.lookup = lookup;
+    }
+
+    /**
+     * Returns the profile of the given name, or an empty optional if there is none. The future is already complete
+     * when the name is cached. Failed lookups other than a missing profile are passed on and not cached.
+     */
+    public synchronized CompletableFuture<Optional<GameProfile>> get(String name) {
+        SkinResolveEvent event = Jfr.AVAILABLE ? SkinResolveEvent.start() : null;
+        this.requests.increment();
+        String key = name.toLowerCase(Locale.ROOT);
+        Entry entry = this.entries.get(key);
+        if (entry != null) {
+            if (entry.expiresAt > System.currentTimeMillis()) {
+                this.hits.increment();
+                if (event != null)
+                    event.end(name, true, entry.profile != null);
+                return CompletableFuture.completedFuture(Optional.ofNullable(entry.profile));
+            }
+            this.entries.remove(key);
+        }
+
+        CompletableFuture<Optional<GameProfile>> future = this.inFlight.get(key);
+        if (future == null)
+            future = lookup(name, key);
+        if (event != null)
+            future.whenComplete((profile, thrown) -> event.end(name, false, profile != null && profile.isPresent()));
+        return future;
+    }
+
+    private CompletableFuture<Optional<GameProfile>> lookup(String name, String key) {
+        CompletableFuture<Optional<GameProfile>> result = new CompletableFuture<>();
+        this.inFlight.put(key, result);
+        this.lookups.increment();
+        long start = System.nanoTime();
+        try {
+            this.lookup.lookup(name).whenComplete((profile, thrown) -> {
+                this.lookupTime.record(System.nanoTime() - start);
+                complete(key, result, profile, thrown);
+            });
+        } catch (RuntimeException e) {
+            complete(key, result, null, e);
+        }
+        return result;
+    }
+
+    private void complete(String key, CompletableFuture<Optional<GameProfile>> result, GameProfile profile,
+                          Throwable thrown) {
+        Throwable cause = thrown instanceof CompletionException && thrown.getCause() != null
+            ? thrown.getCause() : thrown;
+        synchronized (this) {
+            this.inFlight.remove(key);
+            if (cause == null)
+                this.entries.put(key, new Entry(profile, System.currentTimeMillis() + this.ttl));
+            else if (cause instanceof ProfileNotFoundException)
+                this.entries.put(key, new Entry(null, System.currentTimeMillis() + this.negativeTtl));
+        }
+
+        if (cause == null)
+            result.complete(Optional.of(profile));
+        else if (cause instanceof ProfileNotFoundException)
+            result.complete(Optional.empty());
+        else {
+            this.failures.increment();
+            result.completeExceptionally(cause);
+        }
+    }
+
+    public synchronized void invalidate(String name) {
+        this.entries.remove(name.toLowerCase(Locale.ROOT));
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    public long getRequestCount() {
+        return this.requests.sum();
+    }
+
+    /**
+     * Returns how many requests were answered from the cache, without waiting on a lookup.
+     */
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns how many lookups were started, requests that joined a lookup already in flight not included.
+     */
+    public long getLookupCount() {
+        return this.lookups.sum();
+    }
+
+    public long getFailureCount() {
+        return this.failures.sum();
+    }
+
+    public Histogram getLookupTime() {
+        return this.lookupTime;
+    }
+
+    public void resetStats() {
+        this.requests.reset();
+        this.hits.reset();
+        this.lookups.reset();
+        this.failures.reset();
+        this.lookupTime.reset();
+    }
+
+    /**
+     * Replaces the contents of this cache with the unexpired entries saved in the given file, if it exists.
+     */
+    public void load(Path file) throws IOException {
+        if (!Files.exists(file))
+            return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                return;
+            long now = System.currentTimeMillis();
+            int count = in.readInt();
+            synchronized (this) {
+                this.entries.clear();
+                for (int i = 0; i < count; i++) {
+                    String key = in.readUTF();
+                    long expiresAt = in.readLong();
+                    GameProfile profile = in.readBoolean() ? readProfile(in) : null;
+                    if (expiresAt > now && (profile == null || hasTextures(profile)))
+                        this.entries.put(key, new Entry(profile, expiresAt));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes every unexpired entry to the given file, leaving out profiles without a skin so that a lookup that came
+     * back unfilled is tried again after a restart. The file is replaced in one move so that a crash while saving
+     * leaves the previous copy intact.
+     */
+    public void save(Path file) throws IOException {
+        Map<String, Entry> entries;
+        synchronized (this) {
+            entries = Maps.newLinkedHashMap(this.entries);
+        }
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt <= now
+            || entry.profile != null && !hasTextures(entry.profile));
+
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().expiresAt);
+                GameProfile profile = entry.getValue().profile;
+                out.writeBoolean(profile != null);
+                if (profile != null)
+                    writeProfile(out, profile);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static boolean hasTextures(GameProfile profile) {
+        return profile.getPropertyMap().containsKey(TEXTURES);
+    }
+
+    private static void writeProfile(DataOutputStream out, GameProfile profile) throws IOException {
+        out.writeLong(profile.getUniqueId().getMostSignificantBits());
+        out.writeLong(profile.getUniqueId().getLeastSignificantBits());
+        writeOptional(out, profile.getName());
+        Collection<Map.Entry<String, ProfileProperty>> properties = profile.getPropertyMap().entries();
+        out.writeInt(properties.size());
+        for (Map.Entry<String, ProfileProperty> property : properties) {
+            out.writeUTF(property.getKey());
+            out.writeUTF(property.getValue().getName());
+            out.writeUTF(property.getValue().getValue());
+            writeOptional(out, property.getValue().getSignature());
+        }
+    }
+
+    private static GameProfile readProfile(DataInputStream in) throws IOException {
+        UUID uniqueId = new UUID(in.readLong(), in.readLong());
+        GameProfile profile = GameProfile.of(uniqueId, readOptional(in).orElse(null));
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String key = in.readUTF();
+            String name = in.readUTF();
+            String value = in.readUTF();
+            profile.getPropertyMap().put(key, ProfileProperty.of(name, value, readOptional(in).orElse(null)));
+        }
+        return profile;
+    }
+
+    private static void writeOptional(DataOutputStream out, Optional<String> value) throws IOException {
+        out.writeBoolean(value.isPresent());
+        if (value.isPresent())
+            out.writeUTF(value.get());
+    }
+
+    private static Optional<String> readOptional(DataInputStream in) throws IOException {
+        return in.readBoolean() ? Optional.of(in.readUTF()) : Optional.empty();
+    }
+
+    private static final class Entry {
+
+        final GameProfile profile;
+        final long expiresAt;
+
+        Entry(GameProfile profile, long expiresAt) {
+            this.profile = profile;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+}
@@ -6,4 +6,6 @@ import org.spongepowered.api.util.annotation.CatalogedBy;
 @CatalogedBy(NpcTraits.class)
 public interface NpcTrait extends CatalogType {
 
+    int getOrdinal();
+
 }
@@ -1,23 +1,40 @@
 package se.walkercrou.reveries.trait;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
-import org.spongepowered.api.registry.CatalogRegistryModule;
+import com.google.common.collect.Maps;
+import org.spongepowered.api.registry.AdditionalCatalogRegistryModule;
 import org.spongepowered.api.registry.util.RegisterCatalog;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 
-public final class NpcTraitRegistryModule implements CatalogRegistryModule<NpcTrait> {
+public final class NpcTraitRegistryModule implements AdditionalCatalogRegistryModule<NpcTrait> {
+
+    private static NpcTrait[] byOrdinal = new NpcTrait[64];
+    private static int defaultCount;
 
     @RegisterCatalog(NpcTraits.class)
-    private final Map<String, NpcTrait> traitMappings = ImmutableMap.of(
-        "invuln", NpcTraits.INVULNERABLE,
-        "immobile", NpcTraits.IMMOBILE,
-        "nocollide", NpcTraits.NO_COLLIDE,
-        "nofire", NpcTraits.NO_FIRE,
-        "headtracking", NpcTraits.HEAD_TRACKING);
+    private final Map<String, NpcTrait> traitMappings = Maps.newLinkedHashMap();
+
+    public NpcTraitRegistryModule() {
+        registerDefaults();
+    }
+
+    public static NpcTrait getByOrdinal(int ordinal) {
+        return byOrdinal[ordinal];
+    }
+
+    /**
+     * Mask of the ordinals taken by the default traits. Only these ordinals are stable across restarts, additional
+     * traits are numbered in whatever order their plugins happen to register them.
+     */
+    public static long getDefaultMask() {
+        return (1L << defaultCount) - 1;
+    }
 
     @Override
     public Optional<NpcTrait> getById(String id) {
@@ -29,4 +46,34 @@ public final class NpcTraitRegistryModule implements CatalogRegistryModule<NpcTr
         return ImmutableList.copyOf(this.traitMappings.values());
     }
 
+    @Override
+    public void registerDefaults() {
+        // registration order defines the ordinals used in persisted trait masks, only ever append to this list
+        register(NpcTraits.INVULNERABLE);
+        register(NpcTraits.IMMOBILE);
+        register(NpcTraits.NO_COLLIDE);
+        register(NpcTraits.NO_FIRE);
+        register(NpcTraits.HEAD_TRACKING);
+        defaultCount = this.traitMappings.size();
+    }
+
+    @Override
+    public void registerAdditionalCatalog(NpcTrait trait) {
+        checkArgument(trait instanceof SimpleNpcTrait, "traits must be SimpleNpcTrait instances");
+        checkArgument(!this.traitMappings.containsKey(trait.getId().toLowerCase()), "trait already registered");
+        register((SimpleNpcTrait) trait);
+    }
+
+    private void register(NpcTrait trait) {
+        String id = trait.getId().toLowerCase();
+        if (this.traitMappings.containsKey(id))
+            return;
+        int ordinal = this.traitMappings.size();
+        ((SimpleNpcTrait) trait).setOrdinal(ordinal);
+        if (ordinal >= byOrdinal.length)
+            byOrdinal = Arrays.copyOf(byOrdinal, byOrdinal.length * 2);
+        byOrdinal[ordinal] = trait;
+        this.traitMappings.put(id, trait);
+    }
+
 }
@@ -0,0 +1,236 @@
+package se.walkercrou.reveries.trait;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of {@link NpcTrait}s stored as a bitmask indexed by {@link NpcTrait#getOrdinal()}. The first 64 traits live in
+ * a single {@code long}, any further traits spill into an overflow word array that is only allocated when needed.
+ *
+ * <p>Sets returned by {@link #intern(Collection)} are shared between every NPC with the same traits and may not be
+ * changed. To change the traits of an NPC, {@link #copy()} its set, change the copy and intern it again.</p>
+ */
+public final class NpcTraitSet extends AbstractSet<NpcTrait> {
+
+    private static final Interner<NpcTraitSet> INTERNER = Interners.newWeakInterner();
+    // -Dreveries.intern=false gives every NPC a set of its own, to measure what sharing saves
+    private static final boolean SHARED = Boolean.parseBoolean(System.getProperty("reveries.intern", "true"));
+
+    private long bits;
+    private long[] overflow;
+    private boolean interned;
+
+    public NpcTraitSet() {}
+
+    public NpcTraitSet(long bits) {
+        this.bits = bits;
+    }
+
+    private NpcTraitSet(long bits, long[] overflow) {
+        this.bits = bits;
+        this.overflow = overflow;
+    }
+
+    public static NpcTraitSet copyOf(Collection<? extends NpcTrait> traits) {
+        if (traits instanceof NpcTraitSet)
+            return ((NpcTraitSet) traits).copy();
+        NpcTraitSet set = new NpcTraitSet();
+        for (NpcTrait trait : traits)
+            set.add(trait);
+        return set;
+    }
+
+    /**
+     * Returns the shared, unmodifiable set holding the given traits.
+     */
+    public static NpcTraitSet intern(Collection<? extends NpcTrait> traits) {
+        if (traits instanceof NpcTraitSet && ((NpcTraitSet) traits).interned)
+            return (NpcTraitSet) traits;
+        NpcTraitSet set = copyOf(traits);
+        set.interned = true;
+        return SHARED ? INTERNER.intern(set) : set;
+    }
+
+    public boolean isInterned() {
+        return this.interned;
+    }
+
+    /**
+     * Returns a modifiable copy of this set, even if this set is interned.
+     */
+    public NpcTraitSet copy() {
+        return new NpcTraitSet(this.bits, this.overflow == null ? null : this.overflow.clone());
+    }
+
+    public long getMask() {
+        return this.bits;
+    }
+
+    public boolean hasOverflow() {
+        if (this.overflow != null) {
+            for (long word : this.overflow) {
+                if (word != 0)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean has(int ordinal) {
+        // unregistered traits have no ordinal and are never in a set
+        if (ordinal < 0)
+            return false;
+        if (ordinal < 64)
+            return (this.bits & (1L << ordinal)) != 0;
+        int word = (ordinal >> 6) - 1;
+        return this.overflow != null && word < this.overflow.length
+            && (this.overflow[word] & (1L << ordinal)) != 0;
+    }
+
+    private boolean set(int ordinal, boolean value) {
+        checkModifiable();
+        boolean had = has(ordinal);
+        if (had == value)
+            return false;
+        if (ordinal < 64) {
+            this.bits ^= 1L << ordinal;
+            return true;
+        }
+        int word = (ordinal >> 6) - 1;
+        if (this.overflow == null)
+            this.overflow = new long[word + 1];
+        else if (word >= this.overflow.length)
+            this.overflow = Arrays.copyOf(this.overflow, word + 1);
+        this.overflow[word] ^= 1L << ordinal;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof NpcTrait && has(((NpcTrait) o).getOrdinal());
+    }
+
+    @Override
+    public boolean add(NpcTrait trait) {
+        checkArgument(trait.getOrdinal() >= 0, "trait %s is not registered", trait.getId());
+        return set(trait.getOrdinal(), true);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof NpcTrait && ((NpcTrait) o).getOrdinal() >= 0 && set(((NpcTrait) o).getOrdinal(), false);
+    }
+
+    @Override
+    public void clear() {
+        checkModifiable();
+        this.bits = 0;
+        this.overflow = null;
+    }
+
+    private void checkModifiable() {
+        if (this.interned)
+            throw new UnsupportedOperationException("interned trait sets are shared and cannot be changed");
+    }
+
+    @Override
+    public int size() {
+        int size = Long.bitCount(this.bits);
+        if (this.overflow != null) {
+            for (long word : this.overflow)
+                size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.bits == 0 && !hasOverflow();
+    }
+
+    private int nextOrdinal(int from) {
+        if (from < 64) {
+            long word = this.bits & (-1L << from);
+            if (word != 0)
+                return Long.numberOfTrailingZeros(word);
+            from = 64;
+        }
+        if (this.overflow == null)
+            return -1;
+        for (int i = (from >> 6) - 1; i < this.overflow.length; i++) {
+            long word = this.overflow[i];
+            if (i == (from >> 6) - 1)
+                word &= -1L << from;
+            if (word != 0)
+                return ((i + 1) << 6) + Long.numberOfTrailingZeros(word);
+        }
+        return -1;
+    }
+
+    @Override
+    public Iterator<NpcTrait> iterator() {
+        return new Iterator<NpcTrait>() {
+
+            private int next = nextOrdinal(0);
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return this.next != -1;
+            }
+
+            @Override
+            public NpcTrait next() {
+                if (this.next == -1)
+                    throw new NoSuchElementException();
+                this.last = this.next;
+                this.next = nextOrdinal(this.next + 1);
+                return NpcTraitRegistryModule.getByOrdinal(this.last);
+            }
+
+            @Override
+            public void remove() {
+                if (this.last == -1)
+                    throw new IllegalStateException();
+                set(this.last, false);
+                this.last = -1;
+            }
+
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof NpcTraitSet) {
+            NpcTraitSet other = (NpcTraitSet) o;
+            return this.bits == other.bits && overflowEquals(other);
+        }
+        return super.equals(o);
+    }
+
+    private boolean overflowEquals(NpcTraitSet other) {
+        long[] a = this.overflow, b = other.overflow;
+        int len = Math.max(a == null ? 0 : a.length, b == null ? 0 : b.length);
+        for (int i = 0; i < len; i++) {
+            long x = a != null && i < a.length ? a[i] : 0;
+            long y = b != null && i < b.length ? b[i] : 0;
+            if (x != y)
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+}
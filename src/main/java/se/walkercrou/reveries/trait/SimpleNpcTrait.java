@@ -7,6 +7,7 @@ public final class SimpleNpcTrait implements NpcTrait {
     private static final DataQuery QUERY_ID = DataQuery.of("Id");
 
     private final String id;
+    private int ordinal = -1;
 
     public SimpleNpcTrait(String id) {
         this.id = id;
@@ -22,4 +23,13 @@ public final class SimpleNpcTrait implements NpcTrait {
         return this.id;
     }
 
+    @Override
+    public int getOrdinal() {
+        return this.ordinal;
+    }
+
+    void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
+
 }